@@ -0,0 +1,123 @@
+package com.github.codepain.mediadownload.download;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.github.codepain.mediadownload.music.Track;
+import com.github.codepain.mediadownload.transport.Transports;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * <p>
+ * Compares a {@link DownloadScheduler} with a fixed pool of threads to one
+ * using {@linkplain DownloadScheduler#virtual(int) virtual threads}, by
+ * downloading a number of tracks at the same time from a local HTTP server,
+ * which answers each request after a delay like a remote one would.
+ * </p>
+ * <p>
+ * The virtual scheduler needs Java 21 or later, the benchmark fails for it
+ * otherwise.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DownloadSchedulerBenchmark {
+
+	private static final int TRACK_SIZE = 64 * 1024;
+
+	private static final long LATENCY_MILLIS = 20;
+
+	@Param({ "fixed", "virtual" })
+	public String scheduler;
+
+	@Param({ "16", "128" })
+	public int tracks;
+
+	private HttpServer server;
+
+	private ExecutorService serverExecutor;
+
+	private URL url;
+
+	private DownloadOptions options;
+
+	private DownloadScheduler downloadScheduler;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		final byte[] data = new byte[TRACK_SIZE];
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/track", exchange -> {
+			try {
+				Thread.sleep(LATENCY_MILLIS);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.getResponseHeaders().add("Content-Type", "audio/mpeg");
+			exchange.sendResponseHeaders(200, data.length);
+			try (final OutputStream out = exchange.getResponseBody()) {
+				out.write(data);
+			}
+		});
+		serverExecutor = Executors.newCachedThreadPool();
+		server.setExecutor(serverExecutor);
+		server.start();
+		url = new URL("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+				+ "/track");
+
+		if ("virtual".equals(scheduler)) {
+			downloadScheduler = DownloadScheduler.virtual(5);
+		} else {
+			downloadScheduler = new DownloadScheduler(5, 5);
+		}
+		// not the default transport, which limits the requests per host
+		options = new DownloadOptions().scheduler(downloadScheduler)
+				.transport(Transports.jsoup(Duration.ofSeconds(30)));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		downloadScheduler.shutdown();
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	@Benchmark
+	public long downloadTracks() {
+		final List<CompletableFuture<DownloadedItem>> downloads = new ArrayList<>(tracks);
+		for (int i = 0; i < tracks; i++) {
+			downloads.add(new Track("Track " + i, url).download(options).startAsync());
+		}
+
+		long size = 0;
+		for (final CompletableFuture<DownloadedItem> download : downloads) {
+			size += download.join().size();
+		}
+		return size;
+	}
+}
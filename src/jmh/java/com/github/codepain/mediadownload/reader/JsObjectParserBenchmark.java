@@ -0,0 +1,128 @@
+package com.github.codepain.mediadownload.reader;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <p>
+ * Compares reading the {@code TralbumData} of a Bandcamp album page by the
+ * {@link JsObjectParser} to the former way of evaluating it by a fresh
+ * Nashorn engine per page, followed by one evaluation per field and per
+ * track.
+ * </p>
+ * <p>
+ * Nashorn is part of the JDK up to Java 14, later versions get it from the
+ * standalone {@code nashorn-core}.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsObjectParserBenchmark {
+
+	@Param({ "10", "50" })
+	public int tracks;
+
+	private String js;
+
+	@Setup
+	public void setUp() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("var siteroot = \"https://bandcamp.com\";\n");
+		sb.append("var TralbumData = {\n");
+		sb.append("    // the album\n");
+		sb.append("    current: {\"title\":\"Some Album\",\"release_date\":\"01 Jan 2015 00:00:00 GMT\"},\n");
+		sb.append("    artist: \"Some Artist\",\n");
+		sb.append("    artFullsizeUrl: null,\n");
+		sb.append("    artThumbURL: 'https://f4.bcbits.com/img/a1_3.jpg',\n");
+		sb.append("    url: \"https://artist.bandcamp.com\" + \"/album/some-album\",\n");
+		sb.append("    has_audio: true,\n");
+		sb.append("    trackinfo: [");
+		for (int i = 0; i < tracks; i++) {
+			sb.append("{\"title\":\"Track ").append(i + 1).append("\",\"track_num\":").append(i + 1)
+					.append(",\"duration\":").append(180.5 + i).append(",\"file\":{\"mp3-128\":")
+					.append("\"//t4.bcbits.com/stream/").append(Integer.toHexString(i * 7919))
+					.append("/mp3-128/").append(1000000 + i).append("?p=0&ts=1444444444\"}},");
+		}
+		sb.append("],\n");
+		sb.append("    playing_from: \"album page\",\n");
+		sb.append("    featured_track_id: undefined\n");
+		sb.append("};\n");
+		sb.append("var EmbedData = { tralbum_param: { name: \"album\" } };\n");
+		js = sb.toString();
+	}
+
+	@Benchmark
+	public List<String> jsObjectParser() throws ParseException {
+		final JSONObject tralbumData = (JSONObject) JsObjectParser.parseAssignment(js, "TralbumData");
+		final List<String> values = new ArrayList<>();
+		final JSONObject current = (JSONObject) tralbumData.get("current");
+		values.add((String) current.get("title"));
+		values.add((String) tralbumData.get("artist"));
+		values.add((String) current.get("release_date"));
+		for (final Object o : (JSONArray) tralbumData.get("trackinfo")) {
+			final JSONObject track = (JSONObject) o;
+			values.add((String) track.get("title"));
+			values.add((String) ((JSONObject) track.get("file")).get("mp3-128"));
+			values.add(String.valueOf(track.get("track_num")));
+		}
+		return values;
+	}
+
+	@Benchmark
+	public List<String> nashorn() throws ScriptException {
+		// gather the lines of the object, like the reader used to
+		final StringBuilder sb = new StringBuilder();
+		boolean gather = false;
+		for (final String line : js.split("\n", -1)) {
+			if (line.contains("var TralbumData")) {
+				sb.append(line).append("\n");
+				gather = true;
+			} else if (gather) {
+				if (line.contains("};")) {
+					sb.append(line.substring(0, line.indexOf(';')));
+					break;
+				} else if (!line.trim().startsWith("//")) {
+					sb.append(line).append("\n");
+				}
+			}
+		}
+
+		final ScriptEngine engine = new ScriptEngineManager().getEngineByName("nashorn");
+		if (engine == null) {
+			throw new IllegalStateException("Nashorn is not available");
+		}
+		engine.eval(sb.toString());
+		final List<String> values = new ArrayList<>();
+		values.add((String) engine.eval("TralbumData.current.title"));
+		values.add((String) engine.eval("TralbumData.artist"));
+		values.add((String) engine.eval("TralbumData.current.release_date"));
+		final long length = ((Number) engine.eval("TralbumData.trackinfo.length")).longValue();
+		for (int i = 0; i < length; i++) {
+			values.add((String) engine.eval("TralbumData.trackinfo[" + i + "].title"));
+			values.add((String) engine.eval("TralbumData.trackinfo[" + i + "].file['mp3-128']"));
+			values.add(String.valueOf(engine.eval("TralbumData.trackinfo[" + i + "].track_num")));
+		}
+		return values;
+	}
+}
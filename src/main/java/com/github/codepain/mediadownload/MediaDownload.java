@@ -5,6 +5,7 @@ import java.net.URL;
 
 import com.github.codepain.mediadownload.download.Downloadable;
 import com.github.codepain.mediadownload.reader.BandcampReader;
+import com.github.codepain.mediadownload.reader.DiscoveryStream;
 import com.github.codepain.mediadownload.reader.HearThisAtReader;
 import com.github.codepain.mediadownload.reader.Reader;
 import com.github.codepain.mediadownload.reader.SoundcloudReader;
@@ -80,4 +81,24 @@ public final class MediaDownload {
 		return connect(url).read();
 	}
 
+	/**
+	 * <p>
+	 * {@linkplain #connect(URL) Connects} to the specified {@link URL} and
+	 * {@linkplain Reader#readIncrementally() reads it incrementally}, i.e.
+	 * the albums and tracks are handed out as soon as they are discovered.
+	 * </p>
+	 * 
+	 * @param url
+	 *            The {@link URL} of the web page with the media file(s) on it
+	 * @return The {@link DiscoveryStream} of the items
+	 * @throws IOException
+	 *             If no {@link Reader} is available that can handle the web
+	 *             page
+	 * @throws NullPointerException
+	 *             If the parameter is {@code null}
+	 */
+	public static DiscoveryStream readIncrementally(final URL url) throws IOException {
+		return connect(url).readIncrementally();
+	}
+
 }
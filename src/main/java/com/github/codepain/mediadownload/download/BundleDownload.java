@@ -1,22 +1,33 @@
 package com.github.codepain.mediadownload.download;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import com.github.codepain.mediadownload.listener.Event;
-import com.github.codepain.mediadownload.listener.EventType;
 
 /**
  * <p>
  * A {@link Download} that bundles several other downloads. The separate
- * downloads get processed by a {@linkplain ExecutorService thread pool} that
- * usually contains five threads.
+ * downloads get processed by a {@linkplain DownloadScheduler scheduler},
+ * usually running five of them at the same time.
  * </p>
- * 
+ * <p>
+ * A bundle does not occupy a thread while its downloads are running: the next
+ * download gets started as soon as the {@linkplain Download#startAsync()
+ * future} of one completes.
+ * </p>
+ * <p>
+ * The {@linkplain #future() future} of a bundle completes once all of its
+ * downloads are done. If any of them failed, it completes exceptionally with
+ * an {@link IOException} carrying the failures as suppressed exceptions.
+ * </p>
+ *
  * @author codepain
  *
  */
@@ -24,21 +35,30 @@ public class BundleDownload extends Download {
 
 	private final List<Download> downloads = new ArrayList<>();
 
+	private final Queue<Download> pendingDownloads = new ArrayDeque<>();
+
+	private final List<Throwable> failures = new ArrayList<>();
+
+	private int numberOfDownloads;
+
 	private int numberOfFinishedDownloads;
 
-	private final ExecutorService executor;
+	private final DownloadScheduler scheduler;
+
+	private final int concurrency;
 
 	private boolean downloadStarted;
 
-	private final Object waitObject = new Object();
+	private final Object lock = new Object();
 
 	/**
 	 * <p>
 	 * Constructs a {@link BundleDownload} for the specified
-	 * {@linkplain Downloadable downloadable item} using a thread pool with five
-	 * threads.
+	 * {@linkplain Downloadable downloadable item} running five downloads at the
+	 * same time on the {@linkplain DownloadScheduler#shared() shared
+	 * scheduler}.
 	 * </p>
-	 * 
+	 *
 	 * @param downloadable
 	 *            The {@linkplain Downloadable downloadable item}
 	 * @see #BundleDownload(Downloadable, int)
@@ -50,126 +70,172 @@ public class BundleDownload extends Download {
 	/**
 	 * <p>
 	 * Constructs a {@link BundleDownload} for the specified
-	 * {@linkplain Downloadable downloadable item} using a thread pool with the
-	 * specified number of threads.
+	 * {@linkplain Downloadable downloadable item} running the specified number
+	 * of downloads at the same time on the {@linkplain DownloadScheduler#shared()
+	 * shared scheduler}.
 	 * </p>
-	 * 
+	 *
 	 * @param downloadItem
 	 *            The {@linkplain Downloadable downloadable item}
 	 * @param numberThreads
-	 *            The number of threads to use for the thread pool
+	 *            The number of downloads to run at the same time
 	 * @throws IllegalArgumentException
 	 *             If the number of threads is less than one
 	 * @see #BundleDownload(Downloadable)
+	 * @see #BundleDownload(Downloadable, int, DownloadScheduler)
 	 */
 	public BundleDownload(final Downloadable downloadItem, final int numberThreads) {
+		this(downloadItem, numberThreads, DownloadScheduler.shared());
+	}
+
+	/**
+	 * <p>
+	 * Constructs a {@link BundleDownload} for the specified
+	 * {@linkplain Downloadable downloadable item} running the specified number
+	 * of downloads at the same time on the specified
+	 * {@linkplain DownloadScheduler scheduler}, as far as the
+	 * {@linkplain DownloadScheduler#concurrencyOf(int) scheduler allows}.
+	 * </p>
+	 *
+	 * @param downloadItem
+	 *            The {@linkplain Downloadable downloadable item}
+	 * @param numberThreads
+	 *            The number of downloads to run at the same time
+	 * @param scheduler
+	 *            The {@link DownloadScheduler} running the downloads
+	 * @throws IllegalArgumentException
+	 *             If the number of threads is less than one
+	 * @throws NullPointerException
+	 *             If the scheduler is {@code null}
+	 */
+	public BundleDownload(final Downloadable downloadItem, final int numberThreads,
+			final DownloadScheduler scheduler) {
 		super(downloadItem);
 		if (numberThreads < 1) {
 			throw new IllegalArgumentException("Number of threads must be at least one");
 		}
-		executor = Executors.newFixedThreadPool(numberThreads);
+		this.scheduler = Objects.requireNonNull(scheduler);
+		concurrency = scheduler.concurrencyOf(numberThreads);
 	}
 
 	/**
 	 * <p>
 	 * Adds a {@linkplain Download download object} to this bundle.
 	 * </p>
-	 * 
+	 *
 	 * @param download
 	 *            The {@linkplain Download download object} to add
 	 */
 	public void add(final Download download) {
-		downloads.add(download);
+		synchronized (lock) {
+			downloads.add(download);
+			numberOfDownloads++;
+		}
+		download.progressTracker().attach(progressTracker());
 	}
 
 	@Override
 	public Download start() {
-		downloadStarted = true;
-
-		if (numberOfFinishedDownloads < downloads.size()) {
-			for (final Download download : downloads) {
-				executor.submit(new Runnable() {
-
-					@Override
-					public void run() {
-						download.start().waitTillFinished();
-						;
-					}
-				});
+		final boolean empty;
+		synchronized (lock) {
+			if (downloadStarted) {
+				return this;
 			}
+			downloadStarted = true;
+			pendingDownloads.addAll(downloads);
+			empty = downloads.isEmpty();
 		}
 
-		return this;
-	}
-
-	@Override
-	public void whenFinished(final Consumer<Downloadable> callback) {
-		if (callback == null) {
-			throw new NullPointerException("Callback must not be null");
+		if (empty) {
+			triggerFinished(null);
+		} else {
+			for (int i = 0; i < concurrency; i++) {
+				startNext();
+			}
 		}
 
-		waitTillFinished();
-
-		callback.accept(downloadItem);
+		return this;
 	}
 
-	@Override
-	public void waitTillFinished() {
-		if (!downloadStarted) {
-			start();
+	/**
+	 * <p>
+	 * Starts the next pending download asynchronously, if there is one. A
+	 * download that fails to start at all (e.g. as the scheduler is shut down)
+	 * counts as finished with that failure, so the bundle still completes.
+	 * </p>
+	 */
+	private void startNext() {
+		final Download download;
+		synchronized (lock) {
+			download = pendingDownloads.poll();
 		}
 
-		// let's really wait until all sub-downloads finished
-		executor.shutdown();
-		while (!executor.isTerminated()) {
+		if (download != null) {
+			final CompletableFuture<DownloadedItem> future;
 			try {
-				executor.awaitTermination(10, TimeUnit.SECONDS);
-			} catch (final InterruptedException e) {
-				// set the interrupt flag again
-				Thread.currentThread().interrupt();
+				future = download.startAsync();
+			} catch (final RuntimeException e) {
+				onDownloadFinished(download, e);
+				return;
 			}
+			future.whenComplete((downloadedItem, error) -> onDownloadFinished(download, error));
 		}
+	}
 
-		// TODO: is this necessary with the former executor shutdown?
-		while (numberOfFinishedDownloads < downloads.size()) {
-			synchronized (waitObject) {
-				try {
-					waitObject.wait();
-				} catch (final InterruptedException e) {
-					Thread.currentThread().interrupt();
-				}
+	/**
+	 * <p>
+	 * Gets called once a bundled download finished, successfully or not.
+	 * Finishes this bundle if it was the last one, otherwise starts the next
+	 * pending download.
+	 * </p>
+	 * <p>
+	 * The finished download is dropped from the bundle, as its future holds
+	 * the downloaded data, which would stay in memory as long as the bundle
+	 * otherwise.
+	 * </p>
+	 * 
+	 * @param download
+	 *            The finished download
+	 * @param error
+	 *            The error of the download, {@code null} if it succeeded
+	 */
+	private void onDownloadFinished(final Download download, final Throwable error) {
+		final boolean allFinished;
+		synchronized (lock) {
+			if (error != null) {
+				failures.add(error instanceof CompletionException && error.getCause() != null ? error.getCause()
+						: error);
 			}
+			downloads.remove(download);
+			numberOfFinishedDownloads++;
+			allFinished = numberOfFinishedDownloads == numberOfDownloads;
 		}
-	}
 
-	@Override
-	public Progress progress() {
-		int read = 0;
-		int length = 0;
-		for (final Download download : downloads) {
-			read += download.progress().read();
-			length = download.progress().length();
+		if (allFinished) {
+			triggerFinished(null);
+		} else {
+			startNext();
 		}
-
-		return new Progress(read, length);
 	}
 
 	@Override
-	public void onEvent(final Event event) {
-		if (EventType.DOWNLOAD_FINISHED.equals(event.type()) || EventType.ERROR.equals(event.type())) {
-			// only increment counter etc. if it is one of "our" direct child
-			// downloads
-			if (downloads.contains(event.originalSource())) {
-				numberOfFinishedDownloads++;
-
-				if (numberOfFinishedDownloads == downloads.size()) {
-					synchronized (waitObject) {
-						waitObject.notifyAll();
-					}
-					triggerFinished(null);
+	public CompletableFuture<DownloadedItem> future() {
+		return super.future().thenApply(downloadedItem -> {
+			synchronized (lock) {
+				if (!failures.isEmpty()) {
+					final IOException e = new IOException(
+							failures.size() + " of " + numberOfDownloads + " downloads of " + downloadItem + " failed");
+					failures.forEach(e::addSuppressed);
+					throw new CompletionException(e);
 				}
 			}
-		}
+			return downloadedItem;
+		});
+	}
+
+	@Override
+	public void onEvent(final Event event) {
+		// nothing to do, the bundled downloads are tracked by their futures
 	}
 
 }
@@ -2,6 +2,8 @@ package com.github.codepain.mediadownload.download;
 
 import java.io.IOException;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 
 import com.github.codepain.mediadownload.listener.Event;
@@ -19,6 +21,10 @@ import com.github.codepain.mediadownload.listener.Listener;
  * Or you can make a blocking call to {@link #waitTillFinished()}.
  * </p>
  * <p>
+ * {@link #startAsync()} returns a {@link CompletableFuture} instead, which
+ * allows to chain further work without blocking any thread.
+ * </p>
+ * <p>
  * A download process may consist of several download processes, i.e. bundling
  * them. A bundled download is finished, when all bundled downloads finished.
  * </p>
@@ -32,6 +38,10 @@ public abstract class Download implements EventSource, Listener {
 
 	private Listener listener;
 
+	private final CompletableFuture<DownloadedItem> completion = new CompletableFuture<>();
+
+	private final ProgressTracker progressTracker = new ProgressTracker();
+
 	/**
 	 * <p>
 	 * Constructs a {@link Download} for the {@linkplain Downloadable
@@ -76,6 +86,40 @@ public abstract class Download implements EventSource, Listener {
 	 */
 	public abstract Download start();
 
+	/**
+	 * <p>
+	 * Starts the download process like {@link #start()}, but never blocks the
+	 * calling thread, and returns a {@link CompletableFuture} of the
+	 * {@linkplain DownloadedItem downloaded item}.
+	 * </p>
+	 * <p>
+	 * The future completes once the download finished, or completes
+	 * exceptionally if it failed. Dependent stages run on the thread that
+	 * finished the download, unless an executor is given.
+	 * </p>
+	 * 
+	 * @return The {@link CompletableFuture} of the downloaded item
+	 * @see #future()
+	 */
+	public CompletableFuture<DownloadedItem> startAsync() {
+		start();
+		return future();
+	}
+
+	/**
+	 * <p>
+	 * Returns a {@link CompletableFuture} of the {@linkplain DownloadedItem
+	 * downloaded item} without starting the download. Completing the returned
+	 * future does not affect the download.
+	 * </p>
+	 * 
+	 * @return The {@link CompletableFuture} of the downloaded item
+	 * @see #startAsync()
+	 */
+	public CompletableFuture<DownloadedItem> future() {
+		return completion.thenApply(downloadedItem -> downloadedItem);
+	}
+
 	/**
 	 * <p>
 	 * Executes the callback once the download finished. Calling this method
@@ -95,12 +139,22 @@ public abstract class Download implements EventSource, Listener {
 	 * @throws NullPointerException
 	 *             If the callback is {@code null}
 	 * @see #waitTillFinished()
+	 * @see #startAsync()
 	 */
-	public abstract void whenFinished(Consumer<Downloadable> callback);
+	public void whenFinished(final Consumer<Downloadable> callback) {
+		if (callback == null) {
+			throw new NullPointerException("Callback must not be null");
+		}
+
+		waitTillFinished();
+
+		callback.accept(downloadItem);
+	}
 
 	/**
 	 * <p>
-	 * Blocks until the download finished.
+	 * Blocks until the download finished, no matter whether successful or
+	 * not.
 	 * </p>
 	 * <p>
 	 * Please ensure to {@linkplain #start() start} the download first, as it is
@@ -110,8 +164,28 @@ public abstract class Download implements EventSource, Listener {
 	 * </p>
 	 * 
 	 * @see #whenFinished(Consumer)
+	 * @see #startAsync()
 	 */
-	public abstract void waitTillFinished();
+	public void waitTillFinished() {
+		start();
+
+		boolean interrupted = false;
+		while (true) {
+			try {
+				completion.get();
+				break;
+			} catch (final InterruptedException e) {
+				interrupted = true;
+			} catch (final ExecutionException e) {
+				// the error got reported as event already
+				break;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
 
 	/**
 	 * <p>
@@ -120,7 +194,22 @@ public abstract class Download implements EventSource, Listener {
 	 * 
 	 * @return The {@link Progress} of the download
 	 */
-	protected abstract Progress progress();
+	protected Progress progress() {
+		return progressTracker.snapshot();
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@linkplain ProgressTracker tracker} of the progress, which
+	 * can be polled cheaply while the download is running. The tracker of a
+	 * {@link BundleDownload} covers all of its bundled downloads.
+	 * </p>
+	 * 
+	 * @return The {@link ProgressTracker}
+	 */
+	public ProgressTracker progressTracker() {
+		return progressTracker;
+	}
 
 	@Override
 	public void event(Event event) {
@@ -157,14 +246,17 @@ public abstract class Download implements EventSource, Listener {
 	 * @see #triggerFinished(DownloadedItem)
 	 */
 	protected void triggerProgress() {
-		listener.event(new Event(this, EventType.DOWNLOAD_PROGRESS, progress()));
+		if (listener != null) {
+			listener.event(new Event(this, EventType.DOWNLOAD_PROGRESS, progress()));
+		}
 	}
 
 	/**
 	 * <p>
 	 * Creates an {@linkplain EventType#DOWNLOAD_FINISHED finished}
 	 * {@linkplain Event event} and tells the {@linkplain Listener listener}, if
-	 * one is present.
+	 * one is present. Afterwards the {@linkplain #future() future} of this
+	 * download completes.
 	 * </p>
 	 *
 	 * @param downloadedItem
@@ -173,13 +265,22 @@ public abstract class Download implements EventSource, Listener {
 	 * @see #triggerError(IOException)
 	 */
 	protected void triggerFinished(final DownloadedItem downloadedItem) {
-		listener.event(new Event(this, EventType.DOWNLOAD_FINISHED, downloadedItem));
+		try {
+			if (listener != null) {
+				listener.event(new Event(this, EventType.DOWNLOAD_FINISHED, downloadedItem));
+			}
+		} finally {
+			progressTracker.finish();
+			completion.complete(downloadedItem);
+		}
 	}
 
 	/**
 	 * <p>
 	 * Creates an {@linkplain EventType#ERROR error} {@linkplain Event event}
 	 * and tells the {@linkplain Listener listener}, if one is present.
+	 * Afterwards the {@linkplain #future() future} of this download completes
+	 * exceptionally.
 	 * </p>
 	 * 
 	 * @param e
@@ -189,7 +290,14 @@ public abstract class Download implements EventSource, Listener {
 	 * @see #triggerFinished(DownloadedItem)
 	 */
 	protected void triggerError(final IOException e) {
-		listener.event(new Event(this, EventType.ERROR, e));
+		try {
+			if (listener != null) {
+				listener.event(new Event(this, EventType.ERROR, e));
+			}
+		} finally {
+			progressTracker.finish();
+			completion.completeExceptionally(e);
+		}
 	}
 
 }
@@ -0,0 +1,428 @@
+package com.github.codepain.mediadownload.download;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * <p>
+ * Keeps track of a partially downloaded file on the disk, so a download can be
+ * resumed after the JVM got restarted.
+ * </p>
+ * <p>
+ * The data resides in a {@code .part} file, the journal next to it records the
+ * {@link URL}, the validator of the server ({@code ETag} or
+ * {@code Last-Modified}), and for each segment the offset up to which the
+ * data is known to be written to the disk. Both files are named after a hash
+ * of the {@linkplain #identityOf(URL) identity} of the URL, so a later
+ * download of the same URL finds them again, even if its query carries fresh
+ * tokens. Whether the data still belongs to the file is decided by the
+ * validator and the length.
+ * </p>
+ * <p>
+ * Journals that were not touched for a while are given up, when the next one
+ * is {@linkplain #open(Path, URL, long) opened}.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+final class DownloadJournal {
+
+	private static final String PART_SUFFIX = ".part";
+
+	private static final String JOURNAL_SUFFIX = ".journal";
+
+	private final URL url;
+
+	private final Path partFile;
+
+	private final Path journalFile;
+
+	private String mimeType;
+
+	private String etag;
+
+	private String lastModified;
+
+	private long length;
+
+	private final List<long[]> segments = new ArrayList<>();
+
+	private DownloadJournal(final URL url, final Path partFile, final Path journalFile) {
+		this.url = url;
+		this.partFile = partFile;
+		this.journalFile = journalFile;
+	}
+
+	/**
+	 * <p>
+	 * Creates a journal that only lives in memory, i.e. it just tracks the
+	 * segments of a download that cannot be resumed after a restart.
+	 * </p>
+	 *
+	 * @param url
+	 *            The {@link URL} of the download
+	 * @return The {@link DownloadJournal}
+	 */
+	static DownloadJournal inMemory(final URL url) {
+		return new DownloadJournal(url, null, null);
+	}
+
+	/**
+	 * <p>
+	 * Opens the journal for the {@link URL} within the folder. If there is no
+	 * usable journal, an empty one is returned. Journals and partial files in
+	 * the folder older than the maximum age are deleted beforehand.
+	 * </p>
+	 *
+	 * @param folder
+	 *            The folder containing partial downloads
+	 * @param url
+	 *            The {@link URL} of the download
+	 * @param maxAge
+	 *            The age in milliseconds after which journals are given up
+	 * @return The {@link DownloadJournal}
+	 */
+	static DownloadJournal open(final Path folder, final URL url, final long maxAge) {
+		deleteStale(folder, maxAge);
+
+		final String identity = identityOf(url);
+		final String name = hash(identity);
+		final DownloadJournal journal = new DownloadJournal(url, folder.resolve(name + PART_SUFFIX),
+				folder.resolve(name + JOURNAL_SUFFIX));
+
+		if (Files.exists(journal.journalFile) && Files.exists(journal.partFile)) {
+			final Properties properties = new Properties();
+			try (final InputStream in = Files.newInputStream(journal.journalFile)) {
+				properties.load(in);
+				if (identity.equals(properties.getProperty("identity"))) {
+					journal.mimeType = properties.getProperty("mimeType");
+					journal.etag = properties.getProperty("etag");
+					journal.lastModified = properties.getProperty("lastModified");
+					journal.length = Long.parseLong(properties.getProperty("length", "0"));
+					final int count = Integer.parseInt(properties.getProperty("segments", "0"));
+					for (int i = 0; i < count; i++) {
+						final String[] values = properties.getProperty("segment." + i).split(",");
+						journal.segments.add(new long[] { Long.parseLong(values[0]), Long.parseLong(values[1]),
+								Long.parseLong(values[2]) });
+					}
+				}
+			} catch (final IOException | RuntimeException e) {
+				// corrupt journal, start from scratch
+				journal.clear();
+			}
+		}
+
+		return journal;
+	}
+
+	/**
+	 * <p>
+	 * Returns the stable identity of a {@link URL}, i.e. the URL without its
+	 * query and fragment. Stream URLs carry tokens in their query that expire,
+	 * so the same file gets a different URL on every read.
+	 * </p>
+	 *
+	 * @param url
+	 *            The {@link URL}
+	 * @return The identity
+	 */
+	static String identityOf(final URL url) {
+		return url.getProtocol() + "://" + url.getAuthority() + url.getPath();
+	}
+
+	/**
+	 * <p>
+	 * Deletes the journals and partial files in the folder that were not
+	 * modified within the maximum age, e.g. those of failed downloads which
+	 * were never tried again. Failing to do so is ignored, it is tried again
+	 * with the next journal.
+	 * </p>
+	 */
+	private static void deleteStale(final Path folder, final long maxAge) {
+		final long oldest = System.currentTimeMillis() - maxAge;
+		try (final DirectoryStream<Path> files = Files.newDirectoryStream(folder,
+				"*{" + PART_SUFFIX + "," + JOURNAL_SUFFIX + "}")) {
+			for (final Path file : files) {
+				final String fileName = file.getFileName().toString();
+				final String name = fileName.substring(0, fileName.lastIndexOf('.'));
+				// only files named after a hash are ours
+				if (name.matches("[0-9a-f]{40}") && Files.getLastModifiedTime(file).toMillis() < oldest) {
+					Files.deleteIfExists(file);
+				}
+			}
+		} catch (final IOException e) {
+			// nevermind, the next journal tries again
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the file containing the data downloaded so far, or {@code null}
+	 * if the journal only lives in memory.
+	 * </p>
+	 *
+	 * @return
+	 */
+	Path partFile() {
+		return partFile;
+	}
+
+	/**
+	 * <p>
+	 * Returns whether the journal gets written to the disk.
+	 * </p>
+	 *
+	 * @return
+	 */
+	boolean isPersistent() {
+		return journalFile != null;
+	}
+
+	/**
+	 * <p>
+	 * Returns whether the journal describes data of an earlier run.
+	 * </p>
+	 *
+	 * @return
+	 */
+	synchronized boolean isEmpty() {
+		return segments.isEmpty();
+	}
+
+	/**
+	 * <p>
+	 * Forgets all data of an earlier run.
+	 * </p>
+	 */
+	synchronized void clear() {
+		mimeType = null;
+		etag = null;
+		lastModified = null;
+		length = 0;
+		segments.clear();
+	}
+
+	/**
+	 * <p>
+	 * Starts over with the specified segments, each one being an array of
+	 * {@code from} and {@code to} (inclusive, {@code -1} if unknown).
+	 * </p>
+	 *
+	 * @param length
+	 *            The total length, {@code 0} if unknown
+	 * @param ranges
+	 *            The ranges of the segments
+	 */
+	synchronized void reset(final long length, final List<long[]> ranges) {
+		this.length = length;
+		segments.clear();
+		for (final long[] range : ranges) {
+			segments.add(new long[] { range[0], range[1], range[0] });
+		}
+	}
+
+	synchronized String mimeType() {
+		return mimeType;
+	}
+
+	synchronized void mimeType(final String mimeType) {
+		this.mimeType = mimeType;
+	}
+
+	synchronized long length() {
+		return length;
+	}
+
+	synchronized void length(final long length) {
+		this.length = length;
+		if (segments.size() == 1) {
+			segments.get(0)[1] = length - 1;
+		}
+	}
+
+	synchronized int segmentCount() {
+		return segments.size();
+	}
+
+	synchronized long from(final int segment) {
+		return segments.get(segment)[0];
+	}
+
+	synchronized long to(final int segment) {
+		return segments.get(segment)[1];
+	}
+
+	/**
+	 * <p>
+	 * Returns the offset up to which the data of the segment is on the disk.
+	 * </p>
+	 *
+	 * @param segment
+	 *            The index of the segment
+	 * @return The offset
+	 */
+	synchronized long offset(final int segment) {
+		return segments.get(segment)[2];
+	}
+
+	synchronized void offset(final int segment, final long offset) {
+		segments.get(segment)[2] = offset;
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of bytes the segments contain already.
+	 * </p>
+	 *
+	 * @return
+	 */
+	synchronized long completed() {
+		long completed = 0;
+		for (final long[] segment : segments) {
+			completed += segment[2] - segment[0];
+		}
+		return completed;
+	}
+
+	/**
+	 * <p>
+	 * Returns the validator to use in an {@code If-Range} header, preferring
+	 * the {@code ETag} over the {@code Last-Modified} date.
+	 * </p>
+	 *
+	 * @return The validator, or {@code null} if none is known
+	 */
+	synchronized String validator() {
+		return etag != null ? etag : lastModified;
+	}
+
+	/**
+	 * <p>
+	 * Checks whether the validators of the server still match the recorded
+	 * ones.
+	 * </p>
+	 *
+	 * @param etag
+	 *            The {@code ETag} of the server, may be {@code null}
+	 * @param lastModified
+	 *            The {@code Last-Modified} date of the server, may be
+	 *            {@code null}
+	 * @return {@code true}, if the file on the server did not change
+	 */
+	synchronized boolean matches(final String etag, final String lastModified) {
+		if (this.etag != null) {
+			return this.etag.equals(etag);
+		}
+		return this.lastModified != null && this.lastModified.equals(lastModified);
+	}
+
+	synchronized void validators(final String etag, final String lastModified) {
+		this.etag = etag;
+		this.lastModified = lastModified;
+	}
+
+	/**
+	 * <p>
+	 * Copies the segments as they are right now. Segments keep moving their
+	 * offsets while the data gets forced to the disk, so a checkpoint has to
+	 * take the snapshot before forcing and {@linkplain #save(List) save} the
+	 * snapshot afterwards.
+	 * </p>
+	 *
+	 * @return The segments, each one being an array of {@code from},
+	 *         {@code to} and {@code offset}
+	 */
+	synchronized List<long[]> snapshot() {
+		final List<long[]> snapshot = new ArrayList<>(segments.size());
+		for (final long[] segment : segments) {
+			snapshot.add(segment.clone());
+		}
+		return snapshot;
+	}
+
+	/**
+	 * <p>
+	 * Writes the journal to the disk, recording the segments of the
+	 * {@linkplain #snapshot() snapshot}. The caller has to ensure that the
+	 * data up to the offsets of the snapshot is already on the disk.
+	 * </p>
+	 *
+	 * @param snapshot
+	 *            The segments to record
+	 * @throws IOException
+	 *             If writing the journal fails
+	 */
+	synchronized void save(final List<long[]> snapshot) throws IOException {
+		if (!isPersistent()) {
+			return;
+		}
+
+		final Properties properties = new Properties();
+		properties.setProperty("identity", identityOf(url));
+		properties.setProperty("url", url.toString());
+		if (mimeType != null) {
+			properties.setProperty("mimeType", mimeType);
+		}
+		if (etag != null) {
+			properties.setProperty("etag", etag);
+		}
+		if (lastModified != null) {
+			properties.setProperty("lastModified", lastModified);
+		}
+		properties.setProperty("length", String.valueOf(length));
+		properties.setProperty("segments", String.valueOf(snapshot.size()));
+		for (int i = 0; i < snapshot.size(); i++) {
+			final long[] segment = snapshot.get(i);
+			properties.setProperty("segment." + i, segment[0] + "," + segment[1] + "," + segment[2]);
+		}
+
+		// replace the journal atomically, so it is never half-written
+		final Path tmpFile = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+		try (final OutputStream out = Files.newOutputStream(tmpFile)) {
+			properties.store(out, null);
+		}
+		Files.move(tmpFile, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * <p>
+	 * Deletes the journal, once the download is complete. The {@code .part}
+	 * file stays untouched.
+	 * </p>
+	 *
+	 * @throws IOException
+	 *             If deleting fails
+	 */
+	void delete() throws IOException {
+		if (isPersistent()) {
+			Files.deleteIfExists(journalFile);
+		}
+	}
+
+	private static String hash(final String value) {
+		try {
+			final byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+			final StringBuilder sb = new StringBuilder();
+			for (final byte b : digest) {
+				sb.append(String.format("%02x", b));
+			}
+			return sb.toString();
+		} catch (final NoSuchAlgorithmException e) {
+			// every JVM has to support SHA-1
+			throw new IllegalStateException(e);
+		}
+	}
+}
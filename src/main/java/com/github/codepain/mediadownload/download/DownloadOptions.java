@@ -0,0 +1,353 @@
+package com.github.codepain.mediadownload.download;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import com.github.codepain.mediadownload.listener.EventType;
+import com.github.codepain.mediadownload.transport.Transport;
+import com.github.codepain.mediadownload.transport.Transports;
+
+/**
+ * <p>
+ * Options for a {@linkplain Download download}.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+public class DownloadOptions {
+
+	private boolean streamToDisk;
+
+	private DownloadScheduler scheduler = DownloadScheduler.shared();
+
+	private Transport transport = Transports.defaultTransport();
+
+	private boolean resumable;
+
+	private int segments = 1;
+
+	private long journalMaxAge = TimeUnit.DAYS.toMillis(7);
+
+	private long progressInterval = 250;
+
+	private long progressBytes;
+
+	private Path temporaryFolder = Paths.get(System.getProperty("java.io.tmpdir"));
+
+	/**
+	 * <p>
+	 * Sets whether or not the downloaded data shall be written to a file in
+	 * the {@linkplain #temporaryFolder(Path) temporary folder} while it
+	 * arrives, instead of being kept in memory.
+	 * </p>
+	 * <p>
+	 * Streaming to disk keeps the memory usage of a download constant,
+	 * regardless of the size of the downloaded file. The
+	 * {@linkplain DownloadedItem downloaded item} is then a
+	 * {@link FileDownloadedItem}.
+	 * </p>
+	 *
+	 * @param streamToDisk
+	 *            whether or not the data shall be streamed to disk
+	 * @return The modified options, allowing for chaining
+	 */
+	public DownloadOptions streamToDisk(final boolean streamToDisk) {
+		this.streamToDisk = streamToDisk;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Returns whether or not the downloaded data is streamed to disk. For a
+	 * more detailed explanation see {@link #streamToDisk(boolean)}.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public boolean streamToDisk() {
+		return streamToDisk;
+	}
+
+	/**
+	 * <p>
+	 * Sets the folder, in which the files of downloads that are
+	 * {@linkplain #streamToDisk(boolean) streamed to disk} are created. Defaults
+	 * to the folder denoted by the system property {@code java.io.tmpdir}.
+	 * </p>
+	 *
+	 * @param temporaryFolder
+	 *            The folder for temporary download files
+	 * @return The modified options, allowing for chaining
+	 * @throws NullPointerException
+	 *             If the parameter is {@code null}
+	 */
+	public DownloadOptions temporaryFolder(final Path temporaryFolder) {
+		this.temporaryFolder = Objects.requireNonNull(temporaryFolder);
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Returns the folder for temporary download files.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public Path temporaryFolder() {
+		return temporaryFolder;
+	}
+
+	/**
+	 * <p>
+	 * Sets the number of segments a single file is split into. The segments
+	 * get downloaded in parallel over separate connections and are stitched
+	 * together in order, which helps with servers limiting the speed per
+	 * connection.
+	 * </p>
+	 * <p>
+	 * Splitting only happens if the server supports ranges and the file is
+	 * large enough; otherwise the file is downloaded over a single connection.
+	 * Defaults to {@code 1}, i.e. no splitting.
+	 * </p>
+	 * <p>
+	 * A file is split into {@link DownloadScheduler#MAX_SEGMENTS} segments at
+	 * most. The segments of all downloads share a pool of the
+	 * {@linkplain #scheduler(DownloadScheduler) scheduler}, sized to its
+	 * global concurrency times that maximum, so the number of connections
+	 * stays bounded regardless of the number of downloads.
+	 * </p>
+	 *
+	 * @param segments
+	 *            The number of segments
+	 * @return The modified options, allowing for chaining
+	 * @throws IllegalArgumentException
+	 *             If the number of segments is less than one
+	 */
+	public DownloadOptions segments(final int segments) {
+		if (segments < 1) {
+			throw new IllegalArgumentException("Number of segments must be at least one");
+		}
+		this.segments = segments;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of segments a single file is split into. For a more
+	 * detailed explanation see {@link #segments(int)}.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public int segments() {
+		return segments;
+	}
+
+	/**
+	 * <p>
+	 * Sets whether or not downloads shall survive a restart of the JVM. If
+	 * set, the data is {@linkplain #streamToDisk(boolean) streamed to disk}
+	 * into a {@code .part} file in the {@linkplain #temporaryFolder(Path)
+	 * temporary folder}, accompanied by a small journal. A later download of
+	 * the same URL continues where the earlier one stopped, as long as the
+	 * server reports the file as unchanged. The query of the URL is ignored,
+	 * as stream URLs usually carry tokens that expire.
+	 * </p>
+	 * <p>
+	 * Use a temporary folder that is not cleaned on restart to benefit from
+	 * this option.
+	 * </p>
+	 *
+	 * @param resumable
+	 *            whether or not downloads shall be resumable
+	 * @return The modified options, allowing for chaining
+	 */
+	public DownloadOptions resumable(final boolean resumable) {
+		this.resumable = resumable;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Returns whether or not downloads are resumable after a restart of the
+	 * JVM. For a more detailed explanation see {@link #resumable(boolean)}.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public boolean resumable() {
+		return resumable;
+	}
+
+	/**
+	 * <p>
+	 * Sets the age after which the partial files of {@linkplain #resumable(boolean)
+	 * resumable} downloads are given up. Whenever a resumable download starts,
+	 * journals and partial files in the {@linkplain #temporaryFolder(Path)
+	 * temporary folder} that were not touched for this long are deleted, e.g.
+	 * those of downloads that failed and were never tried again. Defaults to
+	 * seven days.
+	 * </p>
+	 *
+	 * @param journalMaxAge
+	 *            The maximum age in milliseconds
+	 * @return The modified options, allowing for chaining
+	 * @throws IllegalArgumentException
+	 *             If the age is negative
+	 */
+	public DownloadOptions journalMaxAge(final long journalMaxAge) {
+		if (journalMaxAge < 0) {
+			throw new IllegalArgumentException("Journal age must not be negative");
+		}
+		this.journalMaxAge = journalMaxAge;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Returns the age in milliseconds after which partial files are given up.
+	 * For a more detailed explanation see {@link #journalMaxAge(long)}.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public long journalMaxAge() {
+		return journalMaxAge;
+	}
+
+	/**
+	 * <p>
+	 * Sets the {@linkplain DownloadScheduler scheduler} that runs the
+	 * downloads. Defaults to the {@linkplain DownloadScheduler#shared() shared
+	 * scheduler}.
+	 * </p>
+	 *
+	 * @param scheduler
+	 *            The {@link DownloadScheduler}
+	 * @return The modified options, allowing for chaining
+	 * @throws NullPointerException
+	 *             If the parameter is {@code null}
+	 */
+	public DownloadOptions scheduler(final DownloadScheduler scheduler) {
+		this.scheduler = Objects.requireNonNull(scheduler);
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@linkplain DownloadScheduler scheduler} that runs the
+	 * downloads.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public DownloadScheduler scheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * <p>
+	 * Sets the {@linkplain Transport transport} that fetches the data of the
+	 * downloads. Defaults to the {@linkplain Transports#defaultTransport()
+	 * default transport}.
+	 * </p>
+	 *
+	 * @param transport
+	 *            The {@link Transport}
+	 * @return The modified options, allowing for chaining
+	 * @throws NullPointerException
+	 *             If the parameter is {@code null}
+	 */
+	public DownloadOptions transport(final Transport transport) {
+		this.transport = Objects.requireNonNull(transport);
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@linkplain Transport transport} that fetches the data of
+	 * the downloads.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public Transport transport() {
+		return transport;
+	}
+
+	/**
+	 * <p>
+	 * Sets the minimum time between two {@linkplain EventType#DOWNLOAD_PROGRESS
+	 * progress events} of a single download. Progress within this time is
+	 * coalesced, i.e. the next event carries the latest state. Defaults to
+	 * 250 milliseconds, which keeps the cost of listeners bounded no matter
+	 * how fast the data arrives.
+	 * </p>
+	 *
+	 * @param progressInterval
+	 *            The minimum time between two progress events in milliseconds
+	 * @return The modified options, allowing for chaining
+	 * @throws IllegalArgumentException
+	 *             If the interval is negative
+	 * @see #progressBytes(long)
+	 */
+	public DownloadOptions progressInterval(final long progressInterval) {
+		if (progressInterval < 0) {
+			throw new IllegalArgumentException("Progress interval must not be negative");
+		}
+		this.progressInterval = progressInterval;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Returns the minimum time between two progress events in milliseconds.
+	 * For a more detailed explanation see {@link #progressInterval(long)}.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public long progressInterval() {
+		return progressInterval;
+	}
+
+	/**
+	 * <p>
+	 * Sets the minimum number of bytes a single download has to read between
+	 * two {@linkplain EventType#DOWNLOAD_PROGRESS progress events}, in
+	 * addition to the {@linkplain #progressInterval(long) interval}. Defaults
+	 * to {@code 0}, i.e. only the interval counts.
+	 * </p>
+	 * <p>
+	 * The last progress of a download is always reported.
+	 * </p>
+	 *
+	 * @param progressBytes
+	 *            The minimum number of bytes between two progress events
+	 * @return The modified options, allowing for chaining
+	 * @throws IllegalArgumentException
+	 *             If the number of bytes is negative
+	 */
+	public DownloadOptions progressBytes(final long progressBytes) {
+		if (progressBytes < 0) {
+			throw new IllegalArgumentException("Progress bytes must not be negative");
+		}
+		this.progressBytes = progressBytes;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Returns the minimum number of bytes between two progress events. For a
+	 * more detailed explanation see {@link #progressBytes(long)}.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public long progressBytes() {
+		return progressBytes;
+	}
+}
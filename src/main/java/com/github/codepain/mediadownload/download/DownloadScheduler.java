@@ -0,0 +1,221 @@
+package com.github.codepain.mediadownload.download;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Executes the work of all {@linkplain Download downloads} that use it, so the
+ * concurrency can be sized once for the whole process instead of per download.
+ * </p>
+ * <p>
+ * There are two limits:
+ * <ul>
+ * <li>The global concurrency, i.e. the number of threads doing the actual
+ * transfers. Segmented downloads use up to {@link #MAX_SEGMENTS} connections
+ * each, so there are never more than global concurrency times
+ * {@link #MAX_SEGMENTS} transfers.</li>
+ * <li>The concurrency per job, i.e. how many sub-downloads a single
+ * {@link BundleDownload} may run at the same time.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Bundled downloads never block a thread of the scheduler while waiting for
+ * their sub-downloads, so nesting them (like a {@linkplain Downloadable
+ * discography} of albums of tracks) cannot exhaust the threads. All threads
+ * are daemon threads.
+ * </p>
+ * <p>
+ * Use {@link #shared()} for the process-wide default, or inject an own
+ * instance by {@link DownloadOptions#scheduler(DownloadScheduler)}.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+public class DownloadScheduler {
+
+	private static final int DEFAULT_CONCURRENCY = 5;
+
+	/**
+	 * The maximum number of {@linkplain DownloadOptions#segments(int)
+	 * segments} of a single download.
+	 */
+	public static final int MAX_SEGMENTS = 4;
+
+	private static final AtomicInteger schedulerCount = new AtomicInteger();
+
+	private static final DownloadScheduler SHARED = new DownloadScheduler(DEFAULT_CONCURRENCY, DEFAULT_CONCURRENCY);
+
+	private final ExecutorService executor;
+
+	private final ExecutorService segmentExecutor;
+
+	private final int maxConcurrencyPerJob;
+
+	/**
+	 * <p>
+	 * Constructs a {@link DownloadScheduler} with the specified limits.
+	 * </p>
+	 *
+	 * @param globalConcurrency
+	 *            The number of downloads that may run at the same time within
+	 *            this scheduler
+	 * @param maxConcurrencyPerJob
+	 *            The maximum number of sub-downloads of a single
+	 *            {@link BundleDownload} that may run at the same time
+	 * @throws IllegalArgumentException
+	 *             If any of the limits is less than one
+	 */
+	public DownloadScheduler(final int globalConcurrency, final int maxConcurrencyPerJob) {
+		if (globalConcurrency < 1 || maxConcurrencyPerJob < 1) {
+			throw new IllegalArgumentException("Concurrency limits must be at least one");
+		}
+		final String name = "media-download-" + schedulerCount.incrementAndGet();
+		executor = Executors.newFixedThreadPool(globalConcurrency, threadFactory(name));
+		// the first segment is transferred by the download itself
+		segmentExecutor = Executors.newFixedThreadPool(globalConcurrency * (MAX_SEGMENTS - 1),
+				threadFactory(name + "-segment"));
+		this.maxConcurrencyPerJob = maxConcurrencyPerJob;
+	}
+
+	private DownloadScheduler(final ExecutorService executor, final ExecutorService segmentExecutor,
+			final int maxConcurrencyPerJob) {
+		this.executor = executor;
+		this.segmentExecutor = segmentExecutor;
+		this.maxConcurrencyPerJob = maxConcurrencyPerJob;
+	}
+
+	/**
+	 * <p>
+	 * Creates a {@link DownloadScheduler} that runs every download on its own
+	 * virtual thread. As downloads spend nearly all of their time waiting for
+	 * the network, there is no global limit: the number of concurrent
+	 * downloads is only limited per job.
+	 * </p>
+	 * <p>
+	 * Virtual threads require Java 21 or later, see
+	 * {@link #virtualThreadsAvailable()}.
+	 * </p>
+	 *
+	 * @param maxConcurrencyPerJob
+	 *            The maximum number of sub-downloads of a single
+	 *            {@link BundleDownload} that may run at the same time
+	 * @return The {@link DownloadScheduler}
+	 * @throws IllegalArgumentException
+	 *             If the limit is less than one
+	 * @throws UnsupportedOperationException
+	 *             If virtual threads are not available
+	 */
+	public static DownloadScheduler virtual(final int maxConcurrencyPerJob) {
+		if (maxConcurrencyPerJob < 1) {
+			throw new IllegalArgumentException("Concurrency limits must be at least one");
+		}
+		final String name = "media-download-" + schedulerCount.incrementAndGet();
+		return new DownloadScheduler(VirtualThreads.newExecutor(name), VirtualThreads.newExecutor(name + "-segment"),
+				maxConcurrencyPerJob);
+	}
+
+	/**
+	 * <p>
+	 * Returns whether or not {@linkplain #virtual(int) schedulers using
+	 * virtual threads} are available, i.e. whether this runs on Java 21 or
+	 * later.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public static boolean virtualThreadsAvailable() {
+		return VirtualThreads.available();
+	}
+
+	/**
+	 * <p>
+	 * Returns the process-wide {@link DownloadScheduler}, which runs five
+	 * downloads at the same time.
+	 * </p>
+	 *
+	 * @return The shared {@link DownloadScheduler}
+	 */
+	public static DownloadScheduler shared() {
+		return SHARED;
+	}
+
+	/**
+	 * <p>
+	 * Returns the concurrency of a job, i.e. the requested concurrency capped
+	 * by the {@linkplain #DownloadScheduler(int, int) maximum concurrency per
+	 * job}.
+	 * </p>
+	 *
+	 * @param requested
+	 *            The concurrency requested by the job
+	 * @return The concurrency the job may use
+	 */
+	public int concurrencyOf(final int requested) {
+		return Math.min(requested, maxConcurrencyPerJob);
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of segments of a download, i.e. the requested number
+	 * capped by {@link #MAX_SEGMENTS}.
+	 * </p>
+	 *
+	 * @param requested
+	 *            The number of segments requested by the download
+	 * @return The number of segments the download may use
+	 */
+	public int segmentsOf(final int requested) {
+		return Math.min(requested, MAX_SEGMENTS);
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@link Executor} for downloads. Readers use it for
+	 * concurrent page fetches as well.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public Executor executor() {
+		return executor;
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@link Executor} for the segments of a
+	 * {@linkplain DownloadOptions#segments(int) segmented} download. It is
+	 * separate from the {@linkplain #executor() download executor}, as the
+	 * download waits for its segments, but bounded by the global concurrency
+	 * as well; segments beyond the bound wait for a free thread.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public Executor segmentExecutor() {
+		return segmentExecutor;
+	}
+
+	/**
+	 * <p>
+	 * Stops accepting new work. Running downloads are finished.
+	 * </p>
+	 */
+	public void shutdown() {
+		executor.shutdown();
+		segmentExecutor.shutdown();
+	}
+
+	private static ThreadFactory threadFactory(final String name) {
+		final AtomicInteger threadCount = new AtomicInteger();
+		return runnable -> {
+			final Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
@@ -3,6 +3,7 @@ package com.github.codepain.mediadownload.download;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import com.github.codepain.mediadownload.listener.Event;
 import com.github.codepain.mediadownload.listener.EventType;
@@ -52,12 +53,43 @@ public abstract class Downloadable implements Savable, Listener {
 	/**
 	 * <p>
 	 * Returns a {@linkplain Download download object}, which can be used to
-	 * download this {@linkplain Downloadable}.
+	 * download this {@linkplain Downloadable}, using default
+	 * {@linkplain DownloadOptions options}.
 	 * </p>
 	 * 
 	 * @return A {@link Download} that downloads this item
+	 * @see #download(DownloadOptions)
 	 */
-	public abstract Download download();
+	public Download download() {
+		return download(new DownloadOptions());
+	}
+
+	/**
+	 * <p>
+	 * Returns a {@linkplain Download download object}, which can be used to
+	 * download this {@linkplain Downloadable}, using the specified
+	 * {@linkplain DownloadOptions options}.
+	 * </p>
+	 * 
+	 * @param options
+	 *            The {@link DownloadOptions} to use
+	 * @return A {@link Download} that downloads this item
+	 * @see #download()
+	 */
+	public abstract Download download(DownloadOptions options);
+
+	/**
+	 * <p>
+	 * Saves this item like {@link #save(SaveOptions)}, downloading it first if
+	 * that has not been done yet, but without blocking the calling thread.
+	 * </p>
+	 * 
+	 * @param options
+	 *            The {@link SaveOptions} to use
+	 * @return The {@link CompletableFuture} of the save, which never completes
+	 *         exceptionally, as errors are reported as events
+	 */
+	public abstract CompletableFuture<Void> saveAsync(SaveOptions options);
 
 	/**
 	 * <p>
@@ -71,6 +103,24 @@ public abstract class Downloadable implements Savable, Listener {
 	 */
 	protected abstract void onEvent(final Event event);
 
+	/**
+	 * <p>
+	 * Completes the files written into the {@linkplain SaveOptions#target()
+	 * save target}; gets called at the end of a save. A failure is reported
+	 * as {@linkplain EventType#ERROR error}.
+	 * </p>
+	 * 
+	 * @param options
+	 *            The {@link SaveOptions} of the save
+	 */
+	protected void flush(final SaveOptions options) {
+		try {
+			options.target().flush();
+		} catch (final IOException e) {
+			triggerError(e);
+		}
+	}
+
 	/**
 	 * <p>
 	 * Creates an {@linkplain EventType#ERROR error} {@linkplain Event event}
@@ -1,5 +1,11 @@
 package com.github.codepain.mediadownload.download;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
 public class DownloadedItem {
 
 	private final String mimeType;
@@ -11,6 +17,19 @@ public class DownloadedItem {
 		this.data = data;
 	}
 
+	/**
+	 * <p>
+	 * Constructs a {@link DownloadedItem} that keeps its data elsewhere, so
+	 * subclasses have to override the methods accessing the data.
+	 * </p>
+	 *
+	 * @param mimeType
+	 *            The MIME type of the data
+	 */
+	protected DownloadedItem(final String mimeType) {
+		this(mimeType, null);
+	}
+
 	public byte[] data() {
 		return data;
 	}
@@ -19,8 +38,83 @@ public class DownloadedItem {
 		return mimeType;
 	}
 
+	/**
+	 * <p>
+	 * Returns the number of bytes of the downloaded data.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public long size() {
+		return data.length;
+	}
+
+	/**
+	 * <p>
+	 * Opens an {@link InputStream} to read the downloaded data without
+	 * necessarily loading all of it into memory. The caller has to close the
+	 * stream.
+	 * </p>
+	 *
+	 * @return A new {@link InputStream} of the data
+	 * @throws IOException
+	 *             If the data cannot be accessed
+	 */
+	public InputStream openStream() throws IOException {
+		return new ByteArrayInputStream(data);
+	}
+
+	/**
+	 * <p>
+	 * Writes a range of the downloaded data to the channel, without copying it
+	 * on the heap. For data on the disk, this allows the operating system to
+	 * transfer it directly from file to file.
+	 * </p>
+	 *
+	 * @param position
+	 *            The position of the first byte to write
+	 * @param count
+	 *            The number of bytes to write, which is cut at the end of the
+	 *            data
+	 * @param target
+	 *            The {@link WritableByteChannel} to write to
+	 * @return The number of bytes written
+	 * @throws IOException
+	 *             If the data cannot be accessed or writing fails
+	 */
+	public long transferTo(final long position, final long count, final WritableByteChannel target)
+			throws IOException {
+		if (position < 0 || count < 0) {
+			throw new IllegalArgumentException("Position and count must not be negative");
+		}
+		if (position >= data.length) {
+			return 0;
+		}
+
+		final ByteBuffer buffer = ByteBuffer.wrap(data, (int) position, (int) Math.min(count, data.length - position));
+		final int transferred = buffer.remaining();
+		while (buffer.hasRemaining()) {
+			target.write(buffer);
+		}
+		return transferred;
+	}
+
+	/**
+	 * <p>
+	 * Releases any resources held by this item, e.g. a file on the disk. The
+	 * data is not accessible anymore afterwards. Does nothing for data that is
+	 * kept in memory.
+	 * </p>
+	 *
+	 * @throws IOException
+	 *             If releasing the resources fails
+	 */
+	public void release() throws IOException {
+		// nothing to do, the garbage collector takes care of the data
+	}
+
 	@Override
 	public String toString() {
-		return getClass().getSimpleName() + "[" + data.length + " bytes, " + mimeType + "]";
+		return getClass().getSimpleName() + "[" + size() + " bytes, " + mimeType + "]";
 	}
 }
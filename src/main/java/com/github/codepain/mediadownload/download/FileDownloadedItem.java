@@ -0,0 +1,113 @@
+package com.github.codepain.mediadownload.download;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * <p>
+ * A {@linkplain DownloadedItem downloaded item} whose data resides in a file
+ * instead of memory. It is the result of a download that got
+ * {@linkplain DownloadOptions#streamToDisk(boolean) streamed to disk}.
+ * </p>
+ * <p>
+ * Calling {@link #data()} loads the whole file into memory, so prefer
+ * {@link #openStream()} or {@link #file()} where possible.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+public class FileDownloadedItem extends DownloadedItem {
+
+	private final Path file;
+
+	private final long size;
+
+	/**
+	 * <p>
+	 * Constructs a {@link FileDownloadedItem}.
+	 * </p>
+	 *
+	 * @param mimeType
+	 *            The MIME type of the data
+	 * @param file
+	 *            The file containing the data
+	 * @param size
+	 *            The number of bytes of the data
+	 * @throws NullPointerException
+	 *             If the file is {@code null}
+	 */
+	public FileDownloadedItem(final String mimeType, final Path file, final long size) {
+		super(mimeType);
+		this.file = Objects.requireNonNull(file);
+		this.size = size;
+	}
+
+	/**
+	 * <p>
+	 * Returns the file containing the data.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public Path file() {
+		return file;
+	}
+
+	@Override
+	public byte[] data() {
+		try {
+			return Files.readAllBytes(file);
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Unable to read " + file, e);
+		}
+	}
+
+	@Override
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public InputStream openStream() throws IOException {
+		return Files.newInputStream(file);
+	}
+
+	@Override
+	public long transferTo(final long position, final long count, final WritableByteChannel target)
+			throws IOException {
+		if (position < 0 || count < 0) {
+			throw new IllegalArgumentException("Position and count must not be negative");
+		}
+
+		final long end = Math.min(size, position + count);
+		long transferred = 0;
+		try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			while (position + transferred < end) {
+				final long n = channel.transferTo(position + transferred, end - position - transferred, target);
+				if (n <= 0 && position + transferred >= channel.size()) {
+					throw new IOException("Unexpected end of " + file);
+				}
+				transferred += n;
+			}
+		}
+		return transferred;
+	}
+
+	@Override
+	public void release() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + size + " bytes, " + mimeType() + ", " + file + "]";
+	}
+}
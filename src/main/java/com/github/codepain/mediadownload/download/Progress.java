@@ -4,39 +4,58 @@ package com.github.codepain.mediadownload.download;
  * <p>
  * Represents a progress of a {@linkplain Download download}.
  * </p>
- * 
+ *
  * @author codepain
  *
  */
 public class Progress {
 
-	private final int read;
+	private final long read;
+
+	private final long length;
 
-	private final int length;
+	private final long bytesPerSecond;
+
+	/**
+	 * <p>
+	 * Constructs a {@link Progress}, which is immutable.
+	 * </p>
+	 *
+	 * @param read
+	 *            The number of bytes that were already read
+	 * @param length
+	 *            The number of bytes of the download file
+	 */
+	public Progress(final long read, final long length) {
+		this(read, length, 0);
+	}
 
 	/**
 	 * <p>
 	 * Constructs a {@link Progress}, which is immutable.
 	 * </p>
-	 * 
+	 *
 	 * @param read
 	 *            The number of bytes that were already read
 	 * @param length
 	 *            The number of bytes of the download file
+	 * @param bytesPerSecond
+	 *            The number of bytes transferred per second
 	 */
-	public Progress(Integer read, Integer length) {
+	public Progress(final long read, final long length, final long bytesPerSecond) {
 		this.read = read;
 		this.length = length;
+		this.bytesPerSecond = bytesPerSecond;
 	}
 
 	/**
 	 * <p>
 	 * Number of read bytes.
 	 * </p>
-	 * 
+	 *
 	 * @return
 	 */
-	public Integer read() {
+	public long read() {
 		return read;
 	}
 
@@ -44,24 +63,54 @@ public class Progress {
 	 * <p>
 	 * Number of bytes of the download.
 	 * </p>
-	 * 
+	 *
 	 * @return
 	 */
-	public Integer length() {
+	public long length() {
 		return length;
 	}
 
+	/**
+	 * <p>
+	 * Number of bytes transferred per second, {@code 0} if unknown.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public long bytesPerSecond() {
+		return bytesPerSecond;
+	}
+
+	/**
+	 * <p>
+	 * Estimated number of seconds until the download finishes, based on the
+	 * {@linkplain #bytesPerSecond() throughput}.
+	 * </p>
+	 *
+	 * @return The estimated time in seconds, or {@code -1} if unknown
+	 */
+	public long secondsRemaining() {
+		return secondsRemaining(read, length, bytesPerSecond);
+	}
+
 	/**
 	 * <p>
 	 * Percentage of the download process, i.e. {@code read / length}.
 	 * </p>
-	 * 
+	 *
 	 * @return
 	 */
 	public double percentage() {
 		return (length == 0) ? 0.0 : ((double) read / length);
 	}
 
+	static long secondsRemaining(final long read, final long length, final long bytesPerSecond) {
+		if (length <= 0 || bytesPerSecond <= 0) {
+			return -1;
+		}
+		return Math.max(0, (length - read + bytesPerSecond - 1) / bytesPerSecond);
+	}
+
 	@Override
 	public String toString() {
 		return 100 * percentage() + "%";
@@ -0,0 +1,200 @@
+package com.github.codepain.mediadownload.download;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Keeps track of the {@linkplain Progress progress} of a {@linkplain Download
+ * download} while it is running.
+ * </p>
+ * <p>
+ * The counters are updated without locks by the transferring threads and
+ * passed on to the tracker of the bundle the download belongs to, so each
+ * level of a download tree always knows its totals. Querying them takes
+ * constant time and does not allocate, which makes the tracker suitable for
+ * polling by a user interface or monitor.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+public final class ProgressTracker {
+
+	private static final long NOT_STARTED = 0;
+
+	private volatile ProgressTracker parent;
+
+	private final LongAdder read = new LongAdder();
+
+	private final LongAdder transferred = new LongAdder();
+
+	private final AtomicLong length = new AtomicLong();
+
+	private final AtomicLong startTime = new AtomicLong(NOT_STARTED);
+
+	private volatile long finishTime = NOT_STARTED;
+
+	ProgressTracker() {
+	}
+
+	/**
+	 * <p>
+	 * Makes this tracker pass its counters on to the specified one, including
+	 * what it counted so far.
+	 * </p>
+	 *
+	 * @param parent
+	 *            The tracker of the bundle
+	 */
+	synchronized void attach(final ProgressTracker parent) {
+		this.parent = parent;
+		parent.addLength(length.get());
+		parent.addRead(read.sum());
+	}
+
+	/**
+	 * <p>
+	 * Counts bytes that have been transferred just now.
+	 * </p>
+	 *
+	 * @param bytes
+	 *            The number of bytes
+	 */
+	void transferred(final long bytes) {
+		for (ProgressTracker tracker = this; tracker != null; tracker = tracker.parent) {
+			tracker.started();
+			tracker.read.add(bytes);
+			tracker.transferred.add(bytes);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Counts bytes that are available without being transferred, like the
+	 * data of an earlier run of a resumed download, or takes them back again
+	 * if negative.
+	 * </p>
+	 *
+	 * @param bytes
+	 *            The number of bytes
+	 */
+	void addRead(final long bytes) {
+		for (ProgressTracker tracker = this; tracker != null; tracker = tracker.parent) {
+			tracker.read.add(bytes);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Sets the total number of bytes, once known.
+	 * </p>
+	 *
+	 * @param length
+	 *            The number of bytes
+	 */
+	void length(final long length) {
+		final long delta = length - this.length.getAndSet(length);
+		final ProgressTracker parent = this.parent;
+		if (parent != null) {
+			parent.addLength(delta);
+		}
+	}
+
+	private void addLength(final long delta) {
+		for (ProgressTracker tracker = this; tracker != null; tracker = tracker.parent) {
+			tracker.length.addAndGet(delta);
+		}
+	}
+
+	private void started() {
+		if (startTime.get() == NOT_STARTED) {
+			final long now = System.nanoTime();
+			startTime.compareAndSet(NOT_STARTED, now == NOT_STARTED ? 1 : now);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Stops the clock, so the {@linkplain #bytesPerSecond() throughput} of a
+	 * finished download does not decrease any further.
+	 * </p>
+	 */
+	void finish() {
+		if (finishTime == NOT_STARTED) {
+			final long now = System.nanoTime();
+			finishTime = now == NOT_STARTED ? 1 : now;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of bytes read so far.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public long read() {
+		return read.sum();
+	}
+
+	/**
+	 * <p>
+	 * Returns the total number of bytes, as far as known yet.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public long length() {
+		return length.get();
+	}
+
+	/**
+	 * <p>
+	 * Returns the average number of bytes transferred per second since the
+	 * first byte arrived. Data of an earlier run of a resumed download does
+	 * not count.
+	 * </p>
+	 *
+	 * @return The throughput, {@code 0} if nothing was transferred yet
+	 */
+	public long bytesPerSecond() {
+		final long start = startTime.get();
+		if (start == NOT_STARTED) {
+			return 0;
+		}
+
+		final long end = finishTime != NOT_STARTED ? finishTime : System.nanoTime();
+		final long elapsed = Math.max(1, end - start);
+		return (long) (transferred.sum() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed);
+	}
+
+	/**
+	 * <p>
+	 * Returns the estimated number of seconds until the download finishes,
+	 * based on the {@linkplain #bytesPerSecond() throughput} so far.
+	 * </p>
+	 *
+	 * @return The estimated time in seconds, or {@code -1} if unknown
+	 */
+	public long secondsRemaining() {
+		return Progress.secondsRemaining(read(), length(), bytesPerSecond());
+	}
+
+	/**
+	 * <p>
+	 * Returns an immutable snapshot of the counters.
+	 * </p>
+	 *
+	 * @return The {@link Progress}
+	 */
+	public Progress snapshot() {
+		return new Progress(read(), length(), bytesPerSecond());
+	}
+
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+}
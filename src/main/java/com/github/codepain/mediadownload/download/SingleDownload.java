@@ -1,15 +1,33 @@
 package com.github.codepain.mediadownload.download;
 
-import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 import java.util.Random;
-import java.util.function.Consumer;
-
-import org.jsoup.Jsoup;
-import org.jsoup.Connection.Response;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.github.codepain.mediadownload.listener.Event;
+import com.github.codepain.mediadownload.transport.Request;
+import com.github.codepain.mediadownload.transport.Response;
 
 /**
  * <p>
@@ -23,19 +41,31 @@ public class SingleDownload extends Download {
 
 	private static final int MAX_TRIES = 3;
 
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final int HTTP_PARTIAL_CONTENT = 206;
+
+	private static final int MIN_SEGMENT_SIZE = 256 * 1024;
+
+	private static final int CHECKPOINT_SIZE = 4 * 1024 * 1024;
+
 	private static final String USER_AGENT = "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/48.0.2564.82 Safari/537.36";
 
 	private final URL url;
 
-	private int length = 0;
+	private final DownloadOptions options;
+
+	private long length = 0;
 
-	private int read = 0;
+	private final AtomicLong read = new AtomicLong();
 
-	private boolean downloadFinished;
+	private final AtomicLong lastProgressTime = new AtomicLong();
 
-	private boolean downloadStarted;
+	private volatile long lastProgressRead;
 
-	private final Object waitForDownload = new Object();
+	private DownloadJournal journal;
+
+	private final AtomicBoolean downloadStarted = new AtomicBoolean();
 
 	private final Random random = new Random();
 
@@ -48,101 +78,553 @@ public class SingleDownload extends Download {
 	 *            The {@linkplain Downloadable downloadable item}
 	 * @param url
 	 *            The {@linkplain URL} of the file to download
+	 * @see #SingleDownload(Downloadable, URL, DownloadOptions)
 	 */
 	public SingleDownload(final Downloadable downloadItem, final URL url) {
+		this(downloadItem, url, new DownloadOptions());
+	}
+
+	/**
+	 * <p>
+	 * Constructs a {@link SingleDownload} for the specified item and URL using
+	 * the specified {@linkplain DownloadOptions options}.
+	 * </p>
+	 * 
+	 * @param downloadItem
+	 *            The {@linkplain Downloadable downloadable item}
+	 * @param url
+	 *            The {@linkplain URL} of the file to download
+	 * @param options
+	 *            The {@linkplain DownloadOptions download options}
+	 * @throws NullPointerException
+	 *             If the options are {@code null}
+	 * @see #SingleDownload(Downloadable, URL)
+	 */
+	public SingleDownload(final Downloadable downloadItem, final URL url, final DownloadOptions options) {
 		super(downloadItem);
 		this.url = url;
+		this.options = Objects.requireNonNull(options);
 	}
 
+	/**
+	 * <p>
+	 * Downloads the file on the calling thread, i.e. this call blocks until
+	 * the download finished. Use {@link #startAsync()} to download on the
+	 * {@linkplain DownloadOptions#scheduler(DownloadScheduler) scheduler}
+	 * instead.
+	 * </p>
+	 */
 	@Override
 	public Download start() {
-		if (!downloadFinished) {
-			downloadStarted = true;
-			int tries = 0;
-			String mimeType = null;
-			try (final ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
-				do {
-					try {
-						final String rangeHeader = "bytes=" + (read == 0 ? "0" : read) + "-";
-						final Response response = Jsoup.connect(url.toString()).ignoreContentType(true)
-								.header("Host", url.getHost()).header("Connection", "keep-alive")
-								.header("Pragma", "no-cache").header("Cache-Control", "no-cache")
-								.header("Accept-Encoding", "identity;q=1, *;q=0").header("User-Agent", USER_AGENT)
-								.header("Accept", "*/*").header("Range", rangeHeader).execute();
-						final byte[] res = response.bodyAsBytes();
-						bos.write(res, 0, res.length);
-						read += res.length;
-
-						if (mimeType == null) {
-							mimeType = response.contentType();
-						}
+		if (downloadStarted.compareAndSet(false, true)) {
+			lastProgressTime.set(System.nanoTime());
+			try {
+				if (options.resumable()) {
+					downloadResumable();
+				} else if (options.streamToDisk()) {
+					downloadToTemporaryFile();
+				} else {
+					journal = DownloadJournal.inMemory(url);
+					try (final MemorySink sink = new MemorySink()) {
+						final String mimeType = transfer(sink);
+						triggerFinished(new DownloadedItem(mimeType, sink.toByteArray()));
+					}
+				}
+			} catch (final IOException e) {
+				triggerError(new IOException(
+						"Error reading " + url + " (read " + read.get() + " of " + length + " bytes)", e));
+			} catch (final RuntimeException e) {
+				triggerError(new IOException("Error reading " + url, e));
+			}
+		}
 
-						if (length == 0) {
-							length = Integer.valueOf(response.header("Content-Length")) - 1;
-						}
+		return this;
+	}
 
-						triggerProgress();
-					} catch (final IOException e) {
-						tries++;
-						System.err.println(downloadItem + " (try " + tries + "/" + MAX_TRIES + ") " + e.getMessage());
-						// wait random time
-						try {
-							Thread.sleep(random.nextInt(tries * 3000));
-						} catch (final InterruptedException e1) {
-							Thread.currentThread().interrupt();
-						}
-						if (tries > MAX_TRIES) {
-							throw e;
-						}
-					}
-				} while (length == 0 || read < length);
+	@Override
+	public CompletableFuture<DownloadedItem> startAsync() {
+		if (!downloadStarted.get()) {
+			options.scheduler().executor().execute(this::start);
+		}
+		return future();
+	}
 
-				triggerFinished(new DownloadedItem(mimeType, bos.toByteArray()));
-			} catch (final IOException e) {
-				triggerError(
-						new IOException("Error reading " + url + " (read " + read + " of " + length + " bytes)", e));
-			} finally {
-				downloadFinished = true;
+	private void downloadToTemporaryFile() throws IOException {
+		journal = DownloadJournal.inMemory(url);
+		final Path file = Files.createTempFile(options.temporaryFolder(), "download-", ".part");
+		try (final FileSink sink = new FileSink(file)) {
+			final String mimeType = transfer(sink);
+			triggerFinished(new FileDownloadedItem(mimeType, file, read.get()));
+		} catch (final IOException e) {
+			Files.deleteIfExists(file);
+			throw e;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Downloads into the {@code .part} file of the {@linkplain DownloadJournal
+	 * journal} of the {@link URL}, continuing where an earlier run stopped.
+	 * The journal gets updated regularly, so the data survives a crash. Once
+	 * complete, the data is moved to a file of its own, so later downloads of
+	 * the same URL cannot touch it.
+	 * </p>
+	 * 
+	 * @throws IOException
+	 *             If the download fails; the partial file and the journal are
+	 *             kept for a later try
+	 */
+	private void downloadResumable() throws IOException {
+		Files.createDirectories(options.temporaryFolder());
+		final DownloadJournal journal = DownloadJournal.open(options.temporaryFolder(), url,
+				options.journalMaxAge());
+		final FileSink sink = new FileSink(journal.partFile());
+		if (!sink.tryLock()) {
+			// someone else is downloading the same URL right now
+			sink.close();
+			downloadToTemporaryFile();
+			return;
+		}
+
+		this.journal = journal;
+		try {
+			if (!journal.isEmpty()) {
+				// the data of the earlier run counts as read already
+				length = journal.length();
+				read.set(journal.completed());
+				progressTracker().length(length);
+				progressTracker().addRead(read.get());
 			}
 
-			synchronized (waitForDownload) {
-				waitForDownload.notifyAll();
+			final String mimeType = transfer(sink);
+			sink.force();
+			// the part file belongs to the URL, so a later download of it
+			// would start over in there; hand out a file of our own instead
+			final Path file = Files.createTempFile(options.temporaryFolder(), "download-", ".part");
+			Files.move(journal.partFile(), file, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			journal.delete();
+			triggerFinished(new FileDownloadedItem(mimeType, file, read.get()));
+		} catch (final IOException e) {
+			try {
+				checkpoint(sink);
+			} catch (final IOException e1) {
+				e.addSuppressed(e1);
 			}
+			throw e;
+		} finally {
+			sink.close();
 		}
+	}
 
-		return this;
+	/**
+	 * <p>
+	 * Transfers the data of {@link #url} into the sink. If more than one
+	 * {@linkplain DownloadOptions#segments(int) segment} is requested (or an
+	 * earlier run used several segments) and the server supports ranges, the
+	 * data is split into segments that get downloaded in parallel. Otherwise
+	 * it is transferred sequentially.
+	 * </p>
+	 * 
+	 * @param sink
+	 *            The {@link Sink} receiving the data
+	 * @return The MIME type of the data
+	 * @throws IOException
+	 *             If the transfer fails
+	 */
+	private String transfer(final Sink sink) throws IOException {
+		final int segments = options.scheduler().segmentsOf(options.segments());
+		if (segments > 1 || journal.segmentCount() > 1) {
+			final Response probe = probe();
+			if (probe != null) {
+				final long total = totalLength(probe);
+				final String etag = probe.header("ETag");
+				final String lastModified = probe.header("Last-Modified");
+				if (!journal.isEmpty() && journal.length() == total && journal.matches(etag, lastModified)) {
+					// continue the segments of the earlier run
+					transferSegmented(sink);
+					return journal.mimeType();
+				} else if (segments > 1 && total >= segments * MIN_SEGMENT_SIZE) {
+					restart(sink, total, segmentRanges(total, segments));
+					journal.mimeType(probe.contentType());
+					journal.validators(etag, lastModified);
+					transferSegmented(sink);
+					return journal.mimeType();
+				}
+			}
+		}
+
+		if (journal.segmentCount() != 1 || journal.validator() == null) {
+			// nothing to continue safely
+			restart(sink, 0, Collections.singletonList(new long[] { 0, -1 }));
+		}
+
+		return transferSequentially(sink);
 	}
 
-	@Override
-	public void whenFinished(final Consumer<Downloadable> callback) {
-		if (callback == null) {
-			throw new NullPointerException("Callback must not be null");
+	/**
+	 * <p>
+	 * Discards all data and starts over with the specified segments.
+	 * </p>
+	 */
+	private void restart(final Sink sink, final long total, final List<long[]> ranges) throws IOException {
+		sink.reset();
+		progressTracker().addRead(-read.getAndSet(0));
+		length = total;
+		progressTracker().length(total);
+		journal.clear();
+		journal.reset(total, ranges);
+	}
+
+	private static List<long[]> segmentRanges(final long length, final int segments) {
+		final List<long[]> ranges = new ArrayList<>();
+		final long segmentSize = length / segments;
+		for (int i = 0; i < segments; i++) {
+			final long from = i * segmentSize;
+			final long to = (i == segments - 1) ? length - 1 : from + segmentSize - 1;
+			ranges.add(new long[] { from, to });
+		}
+		return ranges;
+	}
+
+	/**
+	 * <p>
+	 * Asks the server for the first byte only, to find out whether it
+	 * supports ranges and how long the file is.
+	 * </p>
+	 * 
+	 * @return The {@link Response}, or {@code null} if the server does not
+	 *         support ranges or the probe failed
+	 */
+	private Response probe() {
+		try (final Response response = options.transport().execute(request("bytes=0-0", null))) {
+			response.bodyAsBytes();
+			if (response.statusCode() == HTTP_PARTIAL_CONTENT && response.header("Content-Range") != null) {
+				return response;
+			}
+		} catch (final IOException e) {
+			// nevermind, we just try without segments
 		}
 
-		synchronized (waitForDownload) {
-			while (!downloadFinished) {
+		return null;
+	}
+
+	/**
+	 * <p>
+	 * Downloads the segments of the {@linkplain DownloadJournal journal} in
+	 * parallel, each one writing at its own position in the sink. The first
+	 * segment gets downloaded by the calling thread.
+	 * </p>
+	 * 
+	 * @param sink
+	 *            The {@link Sink} receiving the data
+	 * @throws IOException
+	 *             If any segment fails
+	 */
+	private void transferSegmented(final Sink sink) throws IOException {
+		sink.allocate(length);
+
+		final int segments = journal.segmentCount();
+		final List<FutureTask<Void>> futures = new ArrayList<>();
+		for (int i = 1; i < segments; i++) {
+			final int segment = i;
+			final FutureTask<Void> future = new FutureTask<>(() -> {
+				transferRange(sink, segment);
+				return null;
+			});
+			options.scheduler().segmentExecutor().execute(future);
+			futures.add(future);
+		}
+
+		try {
+			transferRange(sink, 0);
+
+			for (final Future<Void> future : futures) {
 				try {
-					waitForDownload.wait();
+					future.get();
+				} catch (final ExecutionException e) {
+					if (e.getCause() instanceof IOException) {
+						throw (IOException) e.getCause();
+					}
+					throw new IOException(e.getCause());
 				} catch (final InterruptedException e) {
 					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for segments", e);
 				}
 			}
+
+			triggerProgress();
+		} finally {
+			// stop the remaining segments in case of an error
+			for (final Future<Void> future : futures) {
+				future.cancel(true);
+			}
 		}
+	}
 
-		callback.accept(downloadItem);
+	/**
+	 * <p>
+	 * Downloads the remaining bytes of the segment into the sink. Interrupted
+	 * transfers get resumed, up to {@link #MAX_TRIES} times.
+	 * </p>
+	 * 
+	 * @param sink
+	 *            The {@link Sink} receiving the data
+	 * @param segment
+	 *            The index of the segment in the {@linkplain DownloadJournal
+	 *            journal}
+	 * @throws IOException
+	 *             If the transfer fails too many times or the server does not
+	 *             respect the range
+	 */
+	private void transferRange(final Sink sink, final int segment) throws IOException {
+		int tries = 0;
+		final long to = journal.to(segment);
+		long position = journal.offset(segment);
+		long checkpointed = position;
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		while (position <= to) {
+			try (final Response response = options.transport()
+					.execute(request("bytes=" + position + "-" + to, journal.validator()))) {
+				if (response.statusCode() != HTTP_PARTIAL_CONTENT) {
+					throw new IOException("Server did not respect range of segment " + segment);
+				}
+
+				try (final InputStream in = response.body()) {
+					int n;
+					while (position <= to
+							&& (n = in.read(buffer, 0, (int) Math.min(buffer.length, to - position + 1))) > 0) {
+						sink.write(position, buffer, n);
+						position += n;
+						count(n);
+						journal.offset(segment, position);
+						if (position - checkpointed >= CHECKPOINT_SIZE) {
+							checkpoint(sink);
+							checkpointed = position;
+						}
+					}
+				}
+
+				if (position <= to) {
+					throw new IOException("Premature end of segment " + segment + " at " + position);
+				}
+			} catch (final IOException e) {
+				tries++;
+				backOff(tries, e);
+			}
+		}
 	}
 
-	@Override
-	public void waitTillFinished() {
-		// is per se finished, as start() is already blocking
-		if (!downloadStarted) {
-			start();
+	/**
+	 * <p>
+	 * Transfers the data of {@link #url} into the sink, chunk by chunk as it
+	 * arrives. Interrupted transfers get resumed by a {@code Range} request,
+	 * up to {@link #MAX_TRIES} times.
+	 * </p>
+	 * 
+	 * @param sink
+	 *            The {@link Sink} receiving the data
+	 * @return The MIME type of the data
+	 * @throws IOException
+	 *             If the transfer fails too many times
+	 */
+	private String transferSequentially(final Sink sink) throws IOException {
+		int tries = 0;
+		String mimeType = journal.mimeType();
+		long checkpointed = read.get();
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		// a length of 0 means unknown until a body has been read to its end
+		boolean complete = length > 0 && read.get() >= length;
+		while (!complete) {
+			try (final Response response = options.transport()
+					.execute(request("bytes=" + read.get() + "-", journal.validator()))) {
+
+				if (read.get() > 0 && (response.statusCode() != HTTP_PARTIAL_CONTENT
+						|| (length > 0 && totalLength(response) != length))) {
+					// the server ignored the range or the file changed, so we
+					// get everything again
+					restart(sink, 0, Collections.singletonList(new long[] { 0, -1 }));
+					checkpointed = 0;
+					mimeType = null;
+				}
+
+				if (mimeType == null) {
+					mimeType = response.contentType();
+					journal.mimeType(mimeType);
+					journal.validators(response.header("ETag"), response.header("Last-Modified"));
+				}
+
+				if (length == 0) {
+					length = totalLength(response);
+					journal.length(length);
+					progressTracker().length(length);
+					sink.allocate(length);
+				}
+
+				try (final InputStream in = response.body()) {
+					int n;
+					while ((n = in.read(buffer)) != -1) {
+						sink.write(read.get(), buffer, n);
+						journal.offset(0, count(n));
+						if (read.get() - checkpointed >= CHECKPOINT_SIZE) {
+							checkpoint(sink);
+							checkpointed = read.get();
+						}
+					}
+				}
+
+				if (length == 0) {
+					// no length announced (or an empty body), so the body is
+					// all there is
+					length = read.get();
+					journal.length(length);
+					progressTracker().length(length);
+				} else if (read.get() < length) {
+					throw new IOException("Premature end of body at " + read.get() + " of " + length);
+				}
+				complete = true;
+
+			} catch (final IOException e) {
+				tries++;
+				backOff(tries, e);
+			}
 		}
+
+		triggerProgress();
+		return mimeType;
 	}
 
-	@Override
-	public Progress progress() {
-		return new Progress(read, length);
+	/**
+	 * <p>
+	 * Counts freshly transferred bytes.
+	 * </p>
+	 * 
+	 * @param bytes
+	 *            The number of bytes
+	 * @return The number of bytes read in total
+	 */
+	private long count(final int bytes) {
+		progressTracker().transferred(bytes);
+		final long total = read.addAndGet(bytes);
+		progressed(total);
+		return total;
+	}
+
+	/**
+	 * <p>
+	 * Triggers a progress event, if the
+	 * {@linkplain DownloadOptions#progressInterval(long) interval} and the
+	 * {@linkplain DownloadOptions#progressBytes(long) number of bytes} since
+	 * the last one were reached. Concurrent segments race for
+	 * the event, so only one of them triggers it; the event carries the latest
+	 * state at that time.
+	 * </p>
+	 * 
+	 * @param total
+	 *            The number of bytes read in total
+	 */
+	private void progressed(final long total) {
+		if (total - lastProgressRead < options.progressBytes()) {
+			return;
+		}
+
+		final long now = System.nanoTime();
+		final long last = lastProgressTime.get();
+		if (now - last >= TimeUnit.MILLISECONDS.toNanos(options.progressInterval())
+				&& lastProgressTime.compareAndSet(last, now)) {
+			lastProgressRead = total;
+			triggerProgress();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Makes sure the data written so far is on the disk and records the
+	 * offsets in the {@linkplain DownloadJournal journal}, if it is
+	 * {@linkplain DownloadJournal#isPersistent() persistent}. Only the offsets
+	 * taken before forcing get recorded, as other segments keep writing
+	 * meanwhile.
+	 * </p>
+	 * 
+	 * @param sink
+	 *            The {@link Sink} receiving the data
+	 * @throws IOException
+	 *             If writing fails
+	 */
+	private void checkpoint(final Sink sink) throws IOException {
+		if (journal.isPersistent()) {
+			final List<long[]> snapshot = journal.snapshot();
+			sink.force();
+			journal.save(snapshot);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Waits a random time after a failed try, or gives up after
+	 * {@link #MAX_TRIES} tries.
+	 * </p>
+	 * 
+	 * @param tries
+	 *            The number of tries so far
+	 * @param e
+	 *            The {@link IOException} that made the try fail
+	 * @throws IOException
+	 *             The exception, if there were too many tries
+	 */
+	private void backOff(final int tries, final IOException e) throws IOException {
+		System.err.println(downloadItem + " (try " + tries + "/" + MAX_TRIES + ") " + e.getMessage());
+		// wait random time
+		try {
+			Thread.sleep(random.nextInt(tries * 3000));
+		} catch (final InterruptedException e1) {
+			Thread.currentThread().interrupt();
+		}
+		if (tries > MAX_TRIES) {
+			throw e;
+		}
+	}
+
+	private Request request(final String rangeHeader, final String validator) {
+		final Request request = new Request(url).header("Pragma", "no-cache").header("Cache-Control", "no-cache")
+				.header("Accept-Encoding", "identity;q=1, *;q=0").header("User-Agent", USER_AGENT)
+				.header("Accept", "*/*").header("Range", rangeHeader);
+		if (validator != null) {
+			// only get the range if the file did not change meanwhile
+			request.header("If-Range", validator);
+		}
+		return request;
+	}
+
+	/**
+	 * <p>
+	 * Determines the total length of the file from the response, preferring
+	 * the {@code Content-Range} header over the {@code Content-Length} header.
+	 * </p>
+	 * 
+	 * @param response
+	 *            The {@link Response}
+	 * @return The total length, or {@code 0} if unknown
+	 */
+	private long totalLength(final Response response) {
+		try {
+			final String contentRange = response.header("Content-Range");
+			if (contentRange != null && contentRange.lastIndexOf('/') >= 0) {
+				final String total = contentRange.substring(contentRange.lastIndexOf('/') + 1).trim();
+				if (!"*".equals(total)) {
+					return Long.parseLong(total);
+				}
+			}
+
+			final String contentLength = response.header("Content-Length");
+			if (contentLength != null) {
+				return read.get() + Long.parseLong(contentLength.trim());
+			}
+		} catch (final NumberFormatException e) {
+			// nevermind, we just read until the end of the body
+		}
+
+		return 0;
 	}
 
 	@Override
@@ -150,4 +632,158 @@ public class SingleDownload extends Download {
 		// nothing to do
 	}
 
+	/**
+	 * <p>
+	 * Receives the chunks of a {@link SingleDownload}. Chunks may be written
+	 * concurrently, as long as they do not overlap.
+	 * </p>
+	 */
+	private interface Sink extends Closeable {
+
+		/**
+		 * <p>
+		 * Prepares the sink for the specified number of bytes, if known.
+		 * </p>
+		 */
+		void allocate(long length) throws IOException;
+
+		void write(long position, byte[] chunk, int length) throws IOException;
+
+		/**
+		 * <p>
+		 * Discards all data written so far.
+		 * </p>
+		 */
+		void reset() throws IOException;
+
+		/**
+		 * <p>
+		 * Makes sure all data written so far is on the disk.
+		 * </p>
+		 */
+		void force() throws IOException;
+	}
+
+	/**
+	 * <p>
+	 * A {@link Sink} that keeps the data in memory. If the length is known in
+	 * advance, the data is written directly into the final array.
+	 * </p>
+	 */
+	private static class MemorySink implements Sink {
+
+		private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+		private byte[] data = new byte[0];
+
+		private int size;
+
+		@Override
+		public synchronized void allocate(final long length) throws IOException {
+			if (length > MAX_ARRAY_SIZE) {
+				throw new IOException(length + " bytes are too many to keep in memory, stream to disk instead");
+			}
+			if (length > data.length) {
+				data = Arrays.copyOf(data, (int) length);
+			}
+		}
+
+		@Override
+		public void write(final long position, final byte[] chunk, final int length) throws IOException {
+			final byte[] target;
+			synchronized (this) {
+				if (position + length > MAX_ARRAY_SIZE) {
+					throw new IOException("Too many bytes to keep in memory, stream to disk instead");
+				}
+				final int end = (int) position + length;
+				if (end > data.length) {
+					data = Arrays.copyOf(data, (int) Math.min(MAX_ARRAY_SIZE, Math.max(end, data.length * 2L)));
+				}
+				size = Math.max(size, end);
+				target = data;
+			}
+			// allocated arrays do not get replaced, so parallel segments can
+			// copy outside of the lock
+			System.arraycopy(chunk, 0, target, (int) position, length);
+		}
+
+		@Override
+		public synchronized void reset() {
+			size = 0;
+		}
+
+		@Override
+		public void force() {
+			// nothing to do, it's all in memory
+		}
+
+		synchronized byte[] toByteArray() {
+			return size == data.length ? data : Arrays.copyOf(data, size);
+		}
+
+		@Override
+		public void close() {
+			// nothing to do
+		}
+	}
+
+	/**
+	 * <p>
+	 * A {@link Sink} that writes the data into a file through a
+	 * {@link FileChannel}, so only a single chunk is in memory at any time.
+	 * </p>
+	 */
+	private static class FileSink implements Sink {
+
+		private final FileChannel channel;
+
+		FileSink(final Path file) throws IOException {
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		}
+
+		/**
+		 * <p>
+		 * Tries to get exclusive access to the file.
+		 * </p>
+		 * 
+		 * @return {@code true}, if no one else is writing the file
+		 */
+		boolean tryLock() throws IOException {
+			try {
+				return channel.tryLock() != null;
+			} catch (final OverlappingFileLockException e) {
+				return false;
+			}
+		}
+
+		@Override
+		public void allocate(final long length) {
+			// the file grows as needed
+		}
+
+		@Override
+		public void write(final long position, final byte[] chunk, final int length) throws IOException {
+			final ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, length);
+			long offset = position;
+			while (buffer.hasRemaining()) {
+				offset += channel.write(buffer, offset);
+			}
+		}
+
+		@Override
+		public void reset() throws IOException {
+			channel.truncate(0);
+		}
+
+		@Override
+		public void force() throws IOException {
+			channel.force(false);
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
 }
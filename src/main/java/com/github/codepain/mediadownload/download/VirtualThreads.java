@@ -0,0 +1,50 @@
+package com.github.codepain.mediadownload.download;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * <p>
+ * Access to virtual threads, which are only available on Java 21 or later.
+ * </p>
+ * <p>
+ * This is the implementation for older Java versions, which does not support
+ * virtual threads. The multi-release JAR contains an implementation for Java
+ * 21 that replaces this one.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+final class VirtualThreads {
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * <p>
+	 * Returns whether or not virtual threads are available.
+	 * </p>
+	 *
+	 * @return
+	 */
+	static boolean available() {
+		return false;
+	}
+
+	/**
+	 * <p>
+	 * Creates an {@link ExecutorService} starting a new virtual thread for
+	 * each task.
+	 * </p>
+	 *
+	 * @param name
+	 *            The prefix of the thread names
+	 * @return The {@link ExecutorService}
+	 * @throws UnsupportedOperationException
+	 *             If virtual threads are not {@linkplain #available()
+	 *             available}
+	 */
+	static ExecutorService newExecutor(final String name) {
+		throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+	}
+}
@@ -0,0 +1,304 @@
+package com.github.codepain.mediadownload.listener;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * A {@link Listener} that hands the {@linkplain Event events} over to another
+ * listener on a separate thread, so a slow listener (e.g. one writing to a log
+ * or a database) does not stall the downloads.
+ * </p>
+ * <p>
+ * The events are published into a bounded, lock-free ring buffer, which any
+ * number of threads may write to, and are delivered in order by a single
+ * daemon thread. What happens if the buffer is full is decided by the
+ * {@linkplain OverflowPolicy overflow policy}; events other than
+ * {@linkplain EventType#DOWNLOAD_PROGRESS progress events} are never dropped.
+ * </p>
+ * <p>
+ * Put it at the end of the listener chain, i.e. register it instead of the
+ * actual listener:
+ * </p>
+ *
+ * <pre>
+ * downloadable.listener(new AsyncListener(listener, 1024, OverflowPolicy.DROP_PROGRESS));
+ * </pre>
+ * <p>
+ * {@linkplain #close() Closing} it delivers the remaining events and stops
+ * the thread.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+public class AsyncListener implements Listener, Closeable {
+
+	/**
+	 * <p>
+	 * Decides what happens to an {@linkplain Event event} if the buffer of an
+	 * {@link AsyncListener} is full.
+	 * </p>
+	 */
+	public enum OverflowPolicy {
+
+		/**
+		 * Progress events get dropped, all other events wait for space
+		 */
+		DROP_PROGRESS,
+
+		/**
+		 * All events wait for space, i.e. the downloads slow down to the pace
+		 * of the listener
+		 */
+		BLOCK,
+
+		/**
+		 * Only the latest progress event of each download is kept aside and
+		 * delivered once the listener caught up, all other events wait for
+		 * space
+		 */
+		SAMPLE;
+	}
+
+	private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	private static final AtomicInteger threadCount = new AtomicInteger();
+
+	private final Listener listener;
+
+	private final OverflowPolicy overflowPolicy;
+
+	private final AtomicReferenceArray<Event> buffer;
+
+	private final int mask;
+
+	/**
+	 * The next position to write, claimed by the producers
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * The next position to read, only written by the consumer
+	 */
+	private final AtomicLong head = new AtomicLong();
+
+	private final Map<EventSource, Event> sampledProgress = new ConcurrentHashMap<>();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	/**
+	 * The number of producers within {@link #event(Event)}, which may still
+	 * publish although the listener got closed meanwhile
+	 */
+	private final AtomicInteger publishing = new AtomicInteger();
+
+	private final Thread consumer;
+
+	private volatile boolean consumerWaiting;
+
+	private volatile boolean closed;
+
+	/**
+	 * <p>
+	 * Constructs an {@link AsyncListener} with a buffer of 1024 events, which
+	 * drops progress events on overflow.
+	 * </p>
+	 *
+	 * @param listener
+	 *            The {@link Listener} to deliver the events to
+	 * @throws NullPointerException
+	 *             If the listener is {@code null}
+	 * @see #AsyncListener(Listener, int, OverflowPolicy)
+	 */
+	public AsyncListener(final Listener listener) {
+		this(listener, 1024, OverflowPolicy.DROP_PROGRESS);
+	}
+
+	/**
+	 * <p>
+	 * Constructs an {@link AsyncListener} and starts its delivering thread.
+	 * </p>
+	 *
+	 * @param listener
+	 *            The {@link Listener} to deliver the events to
+	 * @param capacity
+	 *            The number of events the buffer holds, rounded up to the next
+	 *            power of two
+	 * @param overflowPolicy
+	 *            The {@link OverflowPolicy}
+	 * @throws IllegalArgumentException
+	 *             If the capacity is less than one
+	 * @throws NullPointerException
+	 *             If the listener or the policy is {@code null}
+	 */
+	public AsyncListener(final Listener listener, final int capacity, final OverflowPolicy overflowPolicy) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Capacity must be between one and 2^30");
+		}
+		this.listener = Objects.requireNonNull(listener);
+		this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+
+		final int size = Integer.highestOneBit(capacity) == capacity ? capacity
+				: Integer.highestOneBit(capacity) << 1;
+		buffer = new AtomicReferenceArray<>(size);
+		mask = size - 1;
+
+		consumer = new Thread(this::consume, "media-download-events-" + threadCount.incrementAndGet());
+		consumer.setDaemon(true);
+		consumer.start();
+	}
+
+	@Override
+	public void event(final Event event) {
+		publishing.incrementAndGet();
+		try {
+			if (closed) {
+				throw new IllegalStateException("Listener is closed");
+			}
+			publish(event);
+		} finally {
+			publishing.decrementAndGet();
+		}
+	}
+
+	private void publish(final Event event) {
+		final boolean progress = EventType.DOWNLOAD_PROGRESS.equals(event.type());
+		// a progress event kept aside before is older than this one
+		final Event formerlySampled = progress && overflowPolicy == OverflowPolicy.SAMPLE
+				? sampledProgress.get(event.originalSource()) : null;
+		while (true) {
+			final long position = tail.get();
+			if (position - head.get() >= buffer.length()) {
+				// full
+				if (progress && overflowPolicy == OverflowPolicy.DROP_PROGRESS) {
+					dropped.incrementAndGet();
+					return;
+				} else if (progress && overflowPolicy == OverflowPolicy.SAMPLE) {
+					if (sampledProgress.put(event.originalSource(), event) != null) {
+						dropped.incrementAndGet();
+					}
+					wakeUpConsumer();
+					return;
+				}
+
+				wakeUpConsumer();
+				LockSupport.parkNanos(PARK_NANOS);
+			} else if (tail.compareAndSet(position, position + 1)) {
+				buffer.lazySet((int) position & mask, event);
+				if (formerlySampled != null && sampledProgress.remove(event.originalSource(), formerlySampled)) {
+					// delivering it after this one would make the progress go backwards
+					dropped.incrementAndGet();
+				}
+				wakeUpConsumer();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of progress events that got dropped or replaced by a
+	 * later one, as the buffer was full.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public long dropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * <p>
+	 * Delivers the events that are still in the buffer and stops the
+	 * delivering thread. Events published afterwards are rejected.
+	 * </p>
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		LockSupport.unpark(consumer);
+		if (Thread.currentThread() != consumer) {
+			try {
+				consumer.join();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void wakeUpConsumer() {
+		if (consumerWaiting) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	private void consume() {
+		long position = head.get();
+		while (true) {
+			final int index = (int) position & mask;
+			final Event event = buffer.get(index);
+			if (event != null) {
+				buffer.lazySet(index, null);
+				head.lazySet(++position);
+				if (!EventType.DOWNLOAD_PROGRESS.equals(event.type())) {
+					// the latest progress belongs before the end of a download
+					deliverSampled(event.originalSource());
+				}
+				deliver(event);
+			} else if (position != tail.get()) {
+				// claimed, but not yet written
+				Thread.yield();
+			} else if (!sampledProgress.isEmpty()) {
+				deliverAllSampled();
+			} else if (closed) {
+				// producers that got past the check before closing may still publish
+				if (publishing.get() == 0 && position == tail.get() && sampledProgress.isEmpty()) {
+					return;
+				}
+				Thread.yield();
+			} else {
+				consumerWaiting = true;
+				// check again, an event might have been published meanwhile
+				if (position == tail.get() && sampledProgress.isEmpty() && !closed) {
+					LockSupport.park(this);
+				}
+				consumerWaiting = false;
+			}
+		}
+	}
+
+	private void deliverSampled(final EventSource source) {
+		if (!sampledProgress.isEmpty()) {
+			final Event sampled = sampledProgress.remove(source);
+			if (sampled != null) {
+				deliver(sampled);
+			}
+		}
+	}
+
+	private void deliverAllSampled() {
+		for (final Map.Entry<EventSource, Event> sampled : sampledProgress.entrySet()) {
+			// a newer event of the source might have been published meanwhile, dropping this one
+			if (sampledProgress.remove(sampled.getKey(), sampled.getValue())) {
+				deliver(sampled.getValue());
+			}
+		}
+	}
+
+	private void deliver(final Event event) {
+		try {
+			listener.event(event);
+		} catch (final RuntimeException e) {
+			// a failing listener must not stop the delivery of other events
+			System.err.println("Listener failed handling " + event + ": " + e);
+		}
+	}
+}
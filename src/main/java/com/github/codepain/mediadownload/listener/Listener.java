@@ -11,6 +11,11 @@ package com.github.codepain.mediadownload.listener;
  * implementing {@link Listener} as well as {@link EventSource}, so an event
  * handled by the listener can be sent again, causing an event to bubble up.
  * </p>
+ * <p>
+ * Listeners are called on the thread that created the event, which is usually
+ * one doing network I/O. To keep a slow listener from stalling the downloads,
+ * wrap it in an {@link AsyncListener}.
+ * </p>
  * 
  * @author codepain
  *
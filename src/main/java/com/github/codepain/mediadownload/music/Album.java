@@ -2,11 +2,10 @@ package com.github.codepain.mediadownload.music;
 
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URL;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 
 import javax.imageio.ImageIO;
 
@@ -15,6 +14,7 @@ import com.github.codepain.mediadownload.download.DownloadedItem;
 import com.github.codepain.mediadownload.listener.EventType;
 import com.github.codepain.mediadownload.save.MimeMappings;
 import com.github.codepain.mediadownload.save.SaveOptions;
+import com.github.codepain.mediadownload.save.SaveTarget;
 
 /**
  * <p>
@@ -34,7 +34,9 @@ public class Album extends LooseTrackSet {
 
 	private String title;
 
-	DownloadedItem albumArt;
+	AlbumArt albumArt;
+
+	private AlbumTagTemplate tagTemplate;
 
 	/**
 	 * <p>
@@ -49,61 +51,69 @@ public class Album extends LooseTrackSet {
 	}
 
 	@Override
-	public void save(final SaveOptions options) {
-		if (downloadFinished) {
-			// already downloaded, just save it
-			final Path albumRoot = options.nameOf(this);
-			trigger(EventType.SAVE_START, "saving album into folder [" + albumRoot + "]");
-			if (!Files.exists(albumRoot)) {
-				try {
-					Files.createDirectories(albumRoot);
-				} catch (final IOException e) {
-					triggerError(e);
-					return;
-				}
-			}
+	Path rootOf(final SaveOptions options) {
+		return options.nameOf(this);
+	}
 
-			final SaveOptions trackOptions = options.copyWithRoot(albumRoot);
-			synchronized (tracks) {
-				for (final Track track : tracks) {
-					track.save(trackOptions);
-				}
+	/**
+	 * <p>
+	 * Returns the {@link AlbumTagTemplate} of the album, which is shared by all
+	 * tracks as long as the meta information does not change.
+	 * </p>
+	 *
+	 * @param albumArt
+	 *            The album art to embed, or {@code null} to embed none
+	 */
+	synchronized AlbumTagTemplate tagTemplate(final AlbumArt albumArt) {
+		if (tagTemplate == null || !tagTemplate.matches(title, artist(), albumArt)) {
+			tagTemplate = new AlbumTagTemplate(title, artist(), albumArt);
+		}
+		return tagTemplate;
+	}
+
+	@Override
+	void finishSave(final Path albumRoot, final SaveOptions options) {
+		synchronized (this) {
+			// the tracks are tagged, so the serialized album art is not needed anymore
+			tagTemplate = null;
+		}
+
+		DownloadedItem albumArt = null;
+		if (options.saveCoverArtSeparately() && this.albumArt != null) {
+			try {
+				albumArt = this.albumArt.get();
+			} catch (final IOException e) {
+				triggerError(new IOException("Unable to fetch cover art", e));
 			}
+		}
 
-			if (options.saveCoverArtSeparately() && albumArt != null) {
-				if (albumArt.mimeType() != null) {
-					final Path albumArtFile = albumRoot
-							.resolve("cover." + MimeMappings.getExtension(albumArt.mimeType()));
+		if (albumArt != null) {
+			if (albumArt.mimeType() != null) {
+				final Path albumArtFile = albumRoot
+						.resolve("cover." + MimeMappings.getExtension(albumArt.mimeType()));
+				trigger(EventType.SAVE_START, "saving cover art [" + albumArtFile + "]");
+				try {
+					options.target().write(albumArtFile, SaveTarget.Content.of(albumArt.data()))
+							.thenRun(() -> trigger(EventType.SAVE_FINISHED, albumArtFile));
+				} catch (final IOException e) {
+					triggerError(new IOException("Unable to save cover art", e));
+				}
+			} else {
+				// no MIME type present, try to read image and save it as
+				// JPEG
+				try (final ByteArrayInputStream bis = new ByteArrayInputStream(albumArt.data())) {
+					final BufferedImage image = ImageIO.read(bis);
+					final Path albumArtFile = albumRoot.resolve("cover.jpg");
 					trigger(EventType.SAVE_START, "saving cover art [" + albumArtFile + "]");
-					try {
-						Files.copy(new ByteArrayInputStream(albumArt.data()), albumArtFile,
-								StandardCopyOption.REPLACE_EXISTING);
-						trigger(EventType.SAVE_FINISHED, albumArtFile);
-					} catch (final IOException e) {
-						triggerError(new IOException("Unable to save cover art", e));
-					}
-				} else {
-					// no MIME type present, try to read image and save it as
-					// JPEG
-					try (final ByteArrayInputStream bis = new ByteArrayInputStream(albumArt.data())) {
-						final BufferedImage image = ImageIO.read(bis);
-						final Path albumArtFile = albumRoot.resolve("cover.jpg");
-						trigger(EventType.SAVE_START, "saving cover art [" + albumArtFile + "]");
-						ImageIO.write(image, "jpg", albumArtFile.toFile());
-						trigger(EventType.SAVE_FINISHED, albumArtFile);
-					} catch (final IOException e) {
-						System.err.println("Cannot save album cover art, do not have any MIME type (" + this
-								+ ") and saving as JPEG failed: " + e.getMessage());
-					}
+					final ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+					ImageIO.write(image, "jpg", jpeg);
+					options.target().write(albumArtFile, SaveTarget.Content.of(jpeg.toByteArray()))
+							.thenRun(() -> trigger(EventType.SAVE_FINISHED, albumArtFile));
+				} catch (final IOException e) {
+					System.err.println("Cannot save album cover art, do not have any MIME type (" + this
+							+ ") and saving as JPEG failed: " + e.getMessage());
 				}
 			}
-
-			trigger(EventType.SAVE_FINISHED, this);
-		} else {
-			// not downloaded yet ...
-			// start the download and save it then
-			final Album that = this;
-			download().start().whenFinished(downloadItem -> that.save(options));
 		}
 	}
 
@@ -138,14 +148,40 @@ public class Album extends LooseTrackSet {
 		return this;
 	}
 
+	@Override
+	void prefetchAlbumArt(final SaveOptions options) {
+		super.prefetchAlbumArt(options);
+		if (options.saveCoverArtSeparately() && albumArt != null) {
+			albumArt.fetchAsync(options.downloadOptions().scheduler().executor());
+		}
+	}
+
 	/**
 	 * <p>
-	 * Returns the {@linkplain DownloadedItem album art}.
+	 * Returns the {@linkplain DownloadedItem album art}, fetching it if that
+	 * has not been done yet.
 	 * </p>
 	 * 
-	 * @return The {@linkplain DownloadedItem album art}
+	 * @return The {@linkplain DownloadedItem album art}, or {@code null} if
+	 *         there is none or it cannot be fetched
 	 */
 	public DownloadedItem albumArt() {
+		try {
+			return albumArt != null ? albumArt.get() : null;
+		} catch (final IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@linkplain AlbumArt reference to the album art}, without
+	 * fetching it.
+	 * </p>
+	 * 
+	 * @return
+	 */
+	public AlbumArt albumArtReference() {
 		return albumArt;
 	}
 
@@ -159,6 +195,21 @@ public class Album extends LooseTrackSet {
 	 * @return The album with the album art set, allowing for chaining
 	 */
 	public Album albumArt(final DownloadedItem albumArt) {
+		this.albumArt = albumArt != null ? new AlbumArt(albumArt) : null;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Sets the {@linkplain AlbumArt album art}, which is fetched not before it
+	 * is needed.
+	 * </p>
+	 * 
+	 * @param albumArt
+	 *            The reference to the album art to set
+	 * @return The album with the album art set, allowing for chaining
+	 */
+	public Album albumArt(final AlbumArt albumArt) {
 		this.albumArt = albumArt;
 		return this;
 	}
@@ -0,0 +1,195 @@
+package com.github.codepain.mediadownload.music;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.github.codepain.mediadownload.download.DownloadedItem;
+
+/**
+ * <p>
+ * A reference to the album art (the cover) of an {@linkplain Album album} or a
+ * {@linkplain Track track}, which is fetched not before it is needed.
+ * </p>
+ * <p>
+ * Readers only note the {@link URL} of the art, so reading does not wait for
+ * any image transfers. The art is either {@linkplain #fetchAsync(Executor)
+ * prefetched} while the tracks are downloaded, or {@linkplain #get() fetched}
+ * when it is saved; if the save options do not need it, it is never fetched
+ * at all. It is fetched at most once, even if requested concurrently, and a
+ * failed fetch is not repeated.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+public class AlbumArt {
+
+	private final URL url;
+
+	private final Fetcher fetcher;
+
+	private final AtomicReference<CompletableFuture<DownloadedItem>> item = new AtomicReference<>();
+
+	private final AtomicBoolean started = new AtomicBoolean();
+
+	/**
+	 * <p>
+	 * Fetches the album art.
+	 * </p>
+	 */
+	@FunctionalInterface
+	public interface Fetcher {
+
+		DownloadedItem fetch(URL url) throws IOException;
+	}
+
+	/**
+	 * <p>
+	 * Constructs an {@link AlbumArt} that is fetched from the {@link URL} by
+	 * the {@link Fetcher} on demand.
+	 * </p>
+	 *
+	 * @param url
+	 *            The {@link URL} of the album art
+	 * @param fetcher
+	 *            The {@link Fetcher}
+	 * @throws NullPointerException
+	 *             If any of the parameters is {@code null}
+	 */
+	public AlbumArt(final URL url, final Fetcher fetcher) {
+		this.url = Objects.requireNonNull(url);
+		this.fetcher = Objects.requireNonNull(fetcher);
+	}
+
+	/**
+	 * <p>
+	 * Constructs an {@link AlbumArt} that is already fetched.
+	 * </p>
+	 *
+	 * @param item
+	 *            The {@linkplain DownloadedItem album art}
+	 * @throws NullPointerException
+	 *             If the item is {@code null}
+	 */
+	public AlbumArt(final DownloadedItem item) {
+		this.url = null;
+		this.fetcher = null;
+		this.item.set(CompletableFuture.completedFuture(Objects.requireNonNull(item)));
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@link URL} of the album art, or {@code null} if it was
+	 * constructed already fetched.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public URL url() {
+		return url;
+	}
+
+	/**
+	 * <p>
+	 * Returns whether or not the album art is fetched already, either
+	 * successfully or not.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public boolean isFetched() {
+		final CompletableFuture<DownloadedItem> fetch = item.get();
+		return fetch != null && fetch.isDone();
+	}
+
+	/**
+	 * <p>
+	 * Starts fetching the album art on the {@link Executor}, unless it is
+	 * fetched or being fetched already.
+	 * </p>
+	 *
+	 * @param executor
+	 *            The {@link Executor} to fetch on
+	 * @return The {@link CompletableFuture} of the album art
+	 */
+	public CompletableFuture<DownloadedItem> fetchAsync(final Executor executor) {
+		final CompletableFuture<DownloadedItem> fetch = item.get();
+		if (fetch != null) {
+			return fetch;
+		}
+
+		final CompletableFuture<DownloadedItem> newFetch = new CompletableFuture<>();
+		if (!item.compareAndSet(null, newFetch)) {
+			return item.get();
+		}
+
+		try {
+			executor.execute(() -> fetch(newFetch));
+		} catch (final RejectedExecutionException e) {
+			// not fetched at all, so it may be tried again
+			item.compareAndSet(newFetch, null);
+			newFetch.completeExceptionally(e);
+		}
+		return newFetch;
+	}
+
+	/**
+	 * <p>
+	 * Fetches the album art, unless that has been started already.
+	 * </p>
+	 */
+	private void fetch(final CompletableFuture<DownloadedItem> fetch) {
+		if (!started.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			fetch.complete(fetcher.fetch(url));
+		} catch (final IOException | RuntimeException e) {
+			fetch.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the album art, fetching it on the current thread if that has not
+	 * been started yet (even if it is queued for prefetching), or waiting for
+	 * the running fetch.
+	 * </p>
+	 *
+	 * @return The {@linkplain DownloadedItem album art}
+	 * @throws IOException
+	 *             If fetching the album art failed
+	 */
+	public DownloadedItem get() throws IOException {
+		try {
+			final CompletableFuture<DownloadedItem> fetch = fetchAsync(Runnable::run);
+			if (!fetch.isDone()) {
+				// the prefetch may be queued behind the very work waiting for it
+				fetch(fetch);
+			}
+			return fetch.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while fetching album art [" + url + "]");
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Unable to fetch album art [" + url + "]", e.getCause());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + (url != null ? url : "fetched") + "]";
+	}
+}
@@ -0,0 +1,246 @@
+package com.github.codepain.mediadownload.music;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.github.codepain.mediadownload.download.DownloadedItem;
+import com.mpatric.mp3agic.AbstractID3v2Tag;
+import com.mpatric.mp3agic.ID3v23Tag;
+import com.mpatric.mp3agic.ID3v24Tag;
+import com.mpatric.mp3agic.NotSupportedException;
+
+/**
+ * <p>
+ * The ID3v2 frames all {@linkplain Track tracks} of an {@linkplain Album
+ * album} share, i.e. the album title, the album artist and the album art.
+ * </p>
+ * <p>
+ * The frames are serialized once per ID3v2 version and then spliced into the
+ * tag of each track, so the album art, which easily takes a few megabytes,
+ * is neither copied into every tag nor encoded again for every track. Tags
+ * the frames cannot be spliced into (ID3v2.2, or tags with unsynchronisation,
+ * an extended header or a footer) get the fields set the usual way.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+final class AlbumTagTemplate {
+
+	private static final int ID3V2_HEADER_LENGTH = 10;
+
+	/**
+	 * The unsynchronisation, extended header and footer flags
+	 */
+	private static final int UNSUPPORTED_FLAGS = 0x80 | 0x40 | 0x10;
+
+	private final String albumTitle;
+
+	private final String albumArtist;
+
+	private final AlbumArt albumArt;
+
+	private final ConcurrentMap<Integer, Frames> frames = new ConcurrentHashMap<>();
+
+	/**
+	 * <p>
+	 * Constructs an {@link AlbumTagTemplate}.
+	 * </p>
+	 *
+	 * @param albumTitle
+	 *            The album title, may be {@code null}
+	 * @param albumArtist
+	 *            The album artist, may be {@code null}
+	 * @param albumArt
+	 *            The album art to embed, which is only fetched if a tag has no
+	 *            image yet; {@code null} to embed none
+	 */
+	AlbumTagTemplate(final String albumTitle, final String albumArtist, final AlbumArt albumArt) {
+		this.albumTitle = albumTitle;
+		this.albumArtist = albumArtist;
+		this.albumArt = albumArt;
+	}
+
+	/**
+	 * <p>
+	 * Returns whether or not the template was made of the same meta
+	 * information, so it can be used again.
+	 * </p>
+	 */
+	boolean matches(final String albumTitle, final String albumArtist, final AlbumArt albumArt) {
+		return Objects.equals(this.albumTitle, albumTitle) && Objects.equals(this.albumArtist, albumArtist)
+				&& this.albumArt == albumArt;
+	}
+
+	/**
+	 * <p>
+	 * Returns whether or not the tag misses any of the album-wide fields.
+	 * </p>
+	 */
+	boolean completes(final AbstractID3v2Tag tag) {
+		return missingFields(tag, albumImage()).length > 0;
+	}
+
+	/**
+	 * <p>
+	 * Serializes the tag, including the album-wide frames it misses.
+	 * </p>
+	 *
+	 * @param tag
+	 *            The tag of the track
+	 * @return The bytes of the tag
+	 * @throws NotSupportedException
+	 *             If the tag cannot be serialized
+	 */
+	byte[] toBytes(final AbstractID3v2Tag tag) throws NotSupportedException {
+		final DownloadedItem image = albumImage();
+		final Field[] missing = missingFields(tag, image);
+		if (missing.length == 0) {
+			return tag.toBytes();
+		}
+
+		for (final Field field : missing) {
+			// an empty frame would be there twice otherwise
+			tag.clearFrameSet(field.frameId);
+		}
+
+		final byte[] bytes = tag.toBytes();
+		final int version = bytes[3];
+		if ((version != 3 && version != 4) || (bytes[5] & UNSUPPORTED_FLAGS) != 0) {
+			for (final Field field : missing) {
+				field.set(this, tag, image);
+			}
+			return tag.toBytes();
+		}
+
+		final Frames versionFrames = frames.computeIfAbsent(version, v -> new Frames(v, image));
+		final List<byte[]> splice = new ArrayList<>();
+		int spliceLength = 0;
+		for (final Field field : missing) {
+			final byte[] frame = versionFrames.of(field);
+			splice.add(frame);
+			spliceLength += frame.length;
+		}
+
+		final byte[] spliced = new byte[bytes.length + spliceLength];
+		System.arraycopy(bytes, 0, spliced, 0, ID3V2_HEADER_LENGTH);
+		int position = ID3V2_HEADER_LENGTH;
+		for (final byte[] frame : splice) {
+			System.arraycopy(frame, 0, spliced, position, frame.length);
+			position += frame.length;
+		}
+		System.arraycopy(bytes, ID3V2_HEADER_LENGTH, spliced, position, bytes.length - ID3V2_HEADER_LENGTH);
+
+		// the size is "synchsafe", i.e. 7 bits per byte
+		final int size = spliced.length - ID3V2_HEADER_LENGTH;
+		spliced[6] = (byte) ((size >> 21) & 0x7f);
+		spliced[7] = (byte) ((size >> 14) & 0x7f);
+		spliced[8] = (byte) ((size >> 7) & 0x7f);
+		spliced[9] = (byte) (size & 0x7f);
+		return spliced;
+	}
+
+	/**
+	 * <p>
+	 * Returns the album art, or {@code null} if there is none or it cannot be
+	 * fetched.
+	 * </p>
+	 */
+	private DownloadedItem albumImage() {
+		if (albumArt == null) {
+			return null;
+		}
+		try {
+			return albumArt.get();
+		} catch (final IOException e) {
+			// nevermind, it's just the cover
+			return null;
+		}
+	}
+
+	private Field[] missingFields(final AbstractID3v2Tag tag, final DownloadedItem image) {
+		final List<Field> missing = new ArrayList<>();
+		if (albumTitle != null && Id3TagWriter.isMissing(tag.getAlbum())) {
+			missing.add(Field.ALBUM_TITLE);
+		}
+		if (albumArtist != null && Id3TagWriter.isMissing(tag.getAlbumArtist())) {
+			missing.add(Field.ALBUM_ARTIST);
+		}
+		if (image != null && tag.getAlbumImage() == null) {
+			missing.add(Field.ALBUM_IMAGE);
+		}
+		return missing.toArray(new Field[missing.size()]);
+	}
+
+	/**
+	 * <p>
+	 * The album-wide fields.
+	 * </p>
+	 */
+	private enum Field {
+
+		ALBUM_TITLE(AbstractID3v2Tag.ID_ALBUM) {
+			@Override
+			void set(final AlbumTagTemplate template, final AbstractID3v2Tag tag, final DownloadedItem image) {
+				tag.setAlbum(template.albumTitle);
+			}
+		},
+
+		ALBUM_ARTIST(AbstractID3v2Tag.ID_ALBUM_ARTIST) {
+			@Override
+			void set(final AlbumTagTemplate template, final AbstractID3v2Tag tag, final DownloadedItem image) {
+				tag.setAlbumArtist(template.albumArtist);
+			}
+		},
+
+		ALBUM_IMAGE(AbstractID3v2Tag.ID_IMAGE) {
+			@Override
+			void set(final AlbumTagTemplate template, final AbstractID3v2Tag tag, final DownloadedItem image) {
+				tag.setAlbumImage(image.data(), image.mimeType());
+			}
+		};
+
+		private final String frameId;
+
+		private Field(final String frameId) {
+			this.frameId = frameId;
+		}
+
+		abstract void set(AlbumTagTemplate template, AbstractID3v2Tag tag, DownloadedItem image);
+	}
+
+	/**
+	 * <p>
+	 * The serialized frames of one ID3v2 version.
+	 * </p>
+	 */
+	private final class Frames {
+
+		private final byte[][] frames = new byte[Field.values().length][];
+
+		Frames(final int version, final DownloadedItem image) {
+			for (final Field field : Field.values()) {
+				if (field != Field.ALBUM_IMAGE || image != null) {
+					final AbstractID3v2Tag tag = version == 3 ? new ID3v23Tag() : new ID3v24Tag();
+					field.set(AlbumTagTemplate.this, tag, image);
+					try {
+						final byte[] bytes = tag.toBytes();
+						frames[field.ordinal()] = Arrays.copyOfRange(bytes, ID3V2_HEADER_LENGTH, bytes.length);
+					} catch (final NotSupportedException e) {
+						// a new tag of a single frame is always supported
+						throw new IllegalStateException(e);
+					}
+				}
+			}
+		}
+
+		byte[] of(final Field field) {
+			return frames[field.ordinal()];
+		}
+	}
+}
@@ -4,9 +4,12 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import com.github.codepain.mediadownload.download.BundleDownload;
 import com.github.codepain.mediadownload.download.Download;
+import com.github.codepain.mediadownload.download.DownloadOptions;
 import com.github.codepain.mediadownload.download.Downloadable;
 import com.github.codepain.mediadownload.listener.Event;
 import com.github.codepain.mediadownload.listener.EventType;
@@ -62,11 +65,11 @@ public class Discography extends Downloadable {
 	}
 
 	@Override
-	public Download download() {
-		download = (BundleDownload) new BundleDownload(this, 1).listener(this);
+	public Download download(final DownloadOptions options) {
+		download = (BundleDownload) new BundleDownload(this, 1, options.scheduler()).listener(this);
 
 		for (final Album album : albums) {
-			download.add(album.listener(download).download());
+			download.add(album.listener(download).download(options));
 		}
 
 		return download;
@@ -74,21 +77,61 @@ public class Discography extends Downloadable {
 
 	@Override
 	public void save(final SaveOptions options) {
+		saveAsync(options).join();
+	}
+
+	@Override
+	public CompletableFuture<Void> saveAsync(final SaveOptions options) {
 		if (downloadFinished) {
 			// already downloaded, just save it
 			trigger(EventType.SAVE_START, "saving discography with " + albums.size() + " albums");
+			final List<CompletableFuture<Void>> saves = new ArrayList<>();
 			for (final Album album : albums) {
-				album.save(options);
+				saves.add(album.saveDownloaded(options));
 			}
-			trigger(EventType.SAVE_FINISHED, this);
+			return finish(saves, options);
+		} else if (options.pipelined()) {
+			// save every track as soon as it is downloaded
+			trigger(EventType.SAVE_START, "saving discography with " + albums.size() + " albums");
+			download = (BundleDownload) new BundleDownload(this, 1, options.downloadOptions().scheduler())
+					.listener(this);
+			final List<CompletableFuture<Void>> saves = new ArrayList<>();
+			for (final Album album : albums) {
+				album.prefetchAlbumArt(options);
+				album.listener(download);
+				final Download albumDownload = album.downloadPipelined(options, saves);
+				if (albumDownload != null) {
+					download.add(albumDownload);
+				}
+			}
+			download.startAsync();
+			return finish(saves, options);
 		} else {
 			// not downloaded yet ...
 			// start the download and save it then
+			for (final Album album : albums) {
+				album.prefetchAlbumArt(options);
+			}
 			final Discography that = this;
-			download().start().whenFinished(downloadItem -> that.save(options));
+			return download(options.downloadOptions()).startAsync().handle((downloadedItem, e) -> {
+				// errors got reported as events, save what is there
+				return that.saveAsync(options);
+			}).thenCompose(Function.identity());
 		}
 	}
 
+	/**
+	 * <p>
+	 * Finishes the save after the albums are saved.
+	 * </p>
+	 */
+	private CompletableFuture<Void> finish(final List<CompletableFuture<Void>> saves, final SaveOptions options) {
+		return CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[saves.size()])).thenRun(() -> {
+			flush(options);
+			trigger(EventType.SAVE_FINISHED, this);
+		});
+	}
+
 	@Override
 	protected void onEvent(final Event event) {
 		if (EventType.DOWNLOAD_FINISHED.equals(event.type()) && event.source() == download) {
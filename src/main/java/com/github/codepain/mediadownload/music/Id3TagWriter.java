@@ -0,0 +1,317 @@
+package com.github.codepain.mediadownload.music;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import com.github.codepain.mediadownload.download.DownloadedItem;
+import com.github.codepain.mediadownload.save.SaveTarget;
+import com.mpatric.mp3agic.AbstractID3v2Tag;
+import com.mpatric.mp3agic.ID3v1;
+import com.mpatric.mp3agic.ID3v1Tag;
+import com.mpatric.mp3agic.ID3v2;
+import com.mpatric.mp3agic.ID3v24Tag;
+import com.mpatric.mp3agic.ID3v2TagFactory;
+import com.mpatric.mp3agic.InvalidDataException;
+import com.mpatric.mp3agic.NoSuchTagException;
+import com.mpatric.mp3agic.NotSupportedException;
+import com.mpatric.mp3agic.UnsupportedTagException;
+
+/**
+ * <p>
+ * Writes the data of a {@linkplain Track track} to a file, completing its
+ * ID3 tags by the meta information of the track on the way.
+ * </p>
+ * <p>
+ * Only the tags at the beginning and the end of the data are read; the new
+ * ID3v2 tag is built in memory, with the frames all tracks of the album share
+ * spliced in by an {@link AlbumTagTemplate}, and written, followed by the
+ * untouched audio data, in a single sequential pass, which is
+ * {@linkplain DownloadedItem#transferTo(long, long, WritableByteChannel)
+ * transferred} directly from the downloaded item. Fields which are already
+ * set are left alone; if nothing is missing, the data is written unchanged.
+ * If there is an ID3v1 tag, it gets completed instead of adding an ID3v2 tag.
+ * </p>
+ * <p>
+ * Building the tags and writing the file are separate steps, so they can run
+ * on different threads: the {@link Plan} is the content of the file, which
+ * gets written by a {@linkplain SaveTarget save target}.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+final class Id3TagWriter {
+
+	private static final int ID3V2_HEADER_LENGTH = 10;
+
+	private static final int ID3V2_FOOTER_LENGTH = 10;
+
+	private static final int ID3V1_LENGTH = 128;
+
+	/**
+	 * How far into the audio data the first MPEG frame is searched
+	 */
+	private static final int FRAME_SYNC_SCAN_LENGTH = 8192;
+
+	private final Track track;
+
+	private final AlbumTagTemplate template;
+
+	/**
+	 * <p>
+	 * Constructs an {@link Id3TagWriter}.
+	 * </p>
+	 *
+	 * @param track
+	 *            The {@link Track} providing the meta information
+	 * @param template
+	 *            The {@link AlbumTagTemplate} providing the album-wide frames
+	 */
+	Id3TagWriter(final Track track, final AlbumTagTemplate template) {
+		this.track = track;
+		this.template = template;
+	}
+
+	/**
+	 * <p>
+	 * Reads the tags of the data and builds the completed ones, without
+	 * writing anything yet.
+	 * </p>
+	 *
+	 * @param item
+	 *            The downloaded data of the track
+	 * @return The {@link Plan} to write the file by
+	 * @throws IOException
+	 *             If reading the data fails
+	 */
+	Plan plan(final DownloadedItem item) throws IOException {
+		final long size = item.size();
+		long payloadStart = 0;
+		AbstractID3v2Tag id3v2Tag = null;
+
+		final byte[] head = read(item, 0, ID3V2_HEADER_LENGTH);
+		if (isId3v2Header(head)) {
+			payloadStart = id3v2Length(head);
+			try {
+				id3v2Tag = ID3v2TagFactory.createTag(read(item, 0, (int) payloadStart));
+			} catch (final NoSuchTagException | UnsupportedTagException | InvalidDataException e) {
+				return Plan.unchanged(item, false);
+			}
+		}
+
+		ID3v1Tag id3v1Tag = null;
+		if (size - payloadStart >= ID3V1_LENGTH) {
+			final byte[] tail = read(item, size - ID3V1_LENGTH, ID3V1_LENGTH);
+			if (tail[0] == 'T' && tail[1] == 'A' && tail[2] == 'G') {
+				try {
+					id3v1Tag = new ID3v1Tag(tail);
+				} catch (final NoSuchTagException e) {
+					// nevermind, it's audio data then
+				}
+			}
+		}
+
+		try {
+			if (id3v1Tag != null) {
+				if (!complete(id3v1Tag)) {
+					return Plan.unchanged(item, true);
+				}
+				return new Plan(item, 0, size - ID3V1_LENGTH, null, id3v1Tag.toBytes(), true);
+			}
+
+			if (id3v2Tag == null && !containsFrameSync(read(item, payloadStart, FRAME_SYNC_SCAN_LENGTH))) {
+				return Plan.unchanged(item, false);
+			}
+
+			final AbstractID3v2Tag tag = id3v2Tag != null ? id3v2Tag : new ID3v24Tag();
+			if (!complete(tag) && !template.completes(tag)) {
+				return Plan.unchanged(item, true);
+			}
+			return new Plan(item, payloadStart, size - payloadStart, template.toBytes(tag), null, true);
+		} catch (final NotSupportedException e) {
+			return Plan.unchanged(item, false);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Sets the missing fields of the ID3v1 tag.
+	 * </p>
+	 *
+	 * @return {@code true}, if any field got set
+	 */
+	private boolean complete(final ID3v1 tag) {
+		boolean changed = false;
+		if (isMissing(tag.getTitle()) && track.title() != null) {
+			tag.setTitle(track.title());
+			changed = true;
+		}
+		if (isMissing(tag.getTrack())) {
+			tag.setTrack("" + track.index());
+			changed = true;
+		}
+		if (isMissing(tag.getAlbum()) && albumTitle() != null) {
+			tag.setAlbum(albumTitle());
+			changed = true;
+		}
+		if (isMissing(tag.getArtist()) && artist() != null) {
+			tag.setArtist(artist());
+			changed = true;
+		}
+		if (isMissing(tag.getYear()) && track.year() != null) {
+			tag.setYear(track.year());
+			changed = true;
+		}
+		return changed;
+	}
+
+	/**
+	 * <p>
+	 * Sets the missing fields of the ID3v2 tag, which are specific to the
+	 * track; the album-wide ones are added by the {@link AlbumTagTemplate}.
+	 * </p>
+	 *
+	 * @return {@code true}, if any field got set
+	 */
+	private boolean complete(final ID3v2 tag) {
+		boolean changed = false;
+		if (isMissing(tag.getTitle()) && track.title() != null) {
+			tag.setTitle(track.title());
+			changed = true;
+		}
+		if (isMissing(tag.getTrack())) {
+			tag.setTrack("" + track.index());
+			changed = true;
+		}
+		if (isMissing(tag.getArtist()) && artist() != null) {
+			tag.setArtist(artist());
+			changed = true;
+		}
+		if (isMissing(tag.getYear()) && track.year() != null) {
+			tag.setYear(track.year());
+			changed = true;
+		}
+		return changed;
+	}
+
+	static boolean isMissing(final String field) {
+		// blank fields of ID3v1 tags are read as empty strings
+		return field == null || field.trim().isEmpty();
+	}
+
+	private String albumTitle() {
+		return track.album() != null ? track.album().title() : null;
+	}
+
+	private String artist() {
+		return track.artist() != null ? track.artist() : albumArtist();
+	}
+
+	private String albumArtist() {
+		return track.album() != null ? track.album().artist() : null;
+	}
+
+	private static byte[] read(final DownloadedItem item, final long position, final int length) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(length);
+		item.transferTo(position, length, Channels.newChannel(bytes));
+		return bytes.toByteArray();
+	}
+
+	private static boolean isId3v2Header(final byte[] head) {
+		return head.length == ID3V2_HEADER_LENGTH && head[0] == 'I' && head[1] == 'D' && head[2] == '3';
+	}
+
+	/**
+	 * <p>
+	 * Returns the total length of the ID3v2 tag, i.e. including header and
+	 * footer.
+	 * </p>
+	 */
+	private static long id3v2Length(final byte[] head) {
+		// the size is "synchsafe", i.e. 7 bits per byte
+		final long size = (head[6] & 0x7f) << 21 | (head[7] & 0x7f) << 14 | (head[8] & 0x7f) << 7 | (head[9] & 0x7f);
+		final boolean footer = (head[5] & 0x10) != 0;
+		return ID3V2_HEADER_LENGTH + size + (footer ? ID3V2_FOOTER_LENGTH : 0);
+	}
+
+	private static boolean containsFrameSync(final byte[] bytes) {
+		for (int i = 0; i < bytes.length - 1; i++) {
+			if ((bytes[i] & 0xff) == 0xff && (bytes[i + 1] & 0xe0) == 0xe0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * <p>
+	 * The outcome of {@linkplain Id3TagWriter#plan(DownloadedItem) tagging}:
+	 * the header, the range of the data and the trailer to write.
+	 * </p>
+	 */
+	static final class Plan implements SaveTarget.Content {
+
+		private final DownloadedItem item;
+
+		private final long position;
+
+		private final long count;
+
+		private final byte[] header;
+
+		private final byte[] trailer;
+
+		private final boolean tagged;
+
+		private Plan(final DownloadedItem item, final long position, final long count, final byte[] header,
+				final byte[] trailer, final boolean tagged) {
+			this.item = item;
+			this.position = position;
+			this.count = count;
+			this.header = header;
+			this.trailer = trailer;
+			this.tagged = tagged;
+		}
+
+		private static Plan unchanged(final DownloadedItem item, final boolean tagged) {
+			return new Plan(item, 0, item.size(), null, null, tagged);
+		}
+
+		/**
+		 * <p>
+		 * Returns whether or not the tags are complete; if not, the data is
+		 * no MPEG audio or its tags are invalid, so it gets written
+		 * unchanged.
+		 * </p>
+		 */
+		boolean tagged() {
+			return tagged;
+		}
+
+		@Override
+		public long size() {
+			return (header != null ? header.length : 0) + count + (trailer != null ? trailer.length : 0);
+		}
+
+		@Override
+		public void writeTo(final WritableByteChannel channel) throws IOException {
+			if (header != null) {
+				writeFully(channel, header);
+			}
+			item.transferTo(position, count, channel);
+			if (trailer != null) {
+				writeFully(channel, trailer);
+			}
+		}
+
+		private static void writeFully(final WritableByteChannel out, final byte[] bytes) throws IOException {
+			final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while (buffer.hasRemaining()) {
+				out.write(buffer);
+			}
+		}
+	}
+}
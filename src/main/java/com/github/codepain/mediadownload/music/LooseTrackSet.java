@@ -2,14 +2,16 @@ package com.github.codepain.mediadownload.music;
 
 import java.io.IOException;
 import java.net.URL;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import com.github.codepain.mediadownload.download.BundleDownload;
 import com.github.codepain.mediadownload.download.Download;
+import com.github.codepain.mediadownload.download.DownloadOptions;
 import com.github.codepain.mediadownload.download.Downloadable;
 import com.github.codepain.mediadownload.listener.Event;
 import com.github.codepain.mediadownload.listener.EventType;
@@ -46,18 +48,32 @@ public class LooseTrackSet extends Downloadable {
 	}
 
 	@Override
-	public Download download() {
-		download = (BundleDownload) new BundleDownload(this).listener(this);
+	public Download download(final DownloadOptions options) {
+		download = (BundleDownload) new BundleDownload(this, 5, options.scheduler()).listener(this);
 
 		synchronized (tracks) {
 			for (final Track track : tracks) {
-				download.add(track.listener(download).download());
+				download.add(track.listener(download).download(options));
 			}
 		}
 
 		return download;
 	}
 
+	/**
+	 * <p>
+	 * Starts fetching the album art of all tracks in the background, as far as
+	 * it is going to be saved.
+	 * </p>
+	 */
+	void prefetchAlbumArt(final SaveOptions options) {
+		synchronized (tracks) {
+			for (final Track track : tracks) {
+				track.prefetchAlbumArt(options);
+			}
+		}
+	}
+
 	@Override
 	protected void onEvent(final Event event) {
 		if (EventType.DOWNLOAD_FINISHED.equals(event.type()) && event.source() == download) {
@@ -67,33 +83,161 @@ public class LooseTrackSet extends Downloadable {
 
 	@Override
 	public void save(final SaveOptions options) {
+		saveAsync(options).join();
+	}
+
+	@Override
+	public CompletableFuture<Void> saveAsync(final SaveOptions options) {
+		final CompletableFuture<Void> save;
 		if (downloadFinished) {
 			// already downloaded, just save it
-			final Path albumRoot = options.nameOf(this);
-			trigger(EventType.SAVE_START, "saving album into folder [" + albumRoot + "]");
-			if (!Files.exists(albumRoot)) {
-				try {
-					Files.createDirectories(albumRoot);
-				} catch (final IOException e) {
-					triggerError(e);
-					return;
-				}
+			save = saveDownloaded(options);
+		} else if (options.pipelined()) {
+			// save every track as soon as it is downloaded
+			prefetchAlbumArt(options);
+			final List<CompletableFuture<Void>> saves = new ArrayList<>();
+			final Download download = downloadPipelined(options, saves);
+			if (download != null) {
+				download.startAsync();
 			}
-
-			final SaveOptions trackOptions = options.copyWithRoot(albumRoot);
-			synchronized (tracks) {
-				for (final Track track : tracks) {
-					track.save(trackOptions);
-				}
-			}
-
-			trigger(EventType.SAVE_FINISHED, this);
+			save = CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[saves.size()]));
 		} else {
 			// not downloaded yet ...
 			// start the download and save it then
-			final LooseTrackSet that = this;
-			download().start().whenFinished(downloadItem -> that.save(options));
+			prefetchAlbumArt(options);
+			save = download(options.downloadOptions()).startAsync().handle((downloadedItem, e) -> {
+				// errors got reported as events, save what is there
+				return saveDownloaded(options);
+			}).thenCompose(Function.identity());
+		}
+		return save.thenRun(() -> flush(options));
+	}
+
+	/**
+	 * <p>
+	 * Saves the downloaded tracks by the {@linkplain SaveOptions#saveScheduler()
+	 * save scheduler}, so they are tagged and written concurrently, and the
+	 * set as a whole after all of them.
+	 * </p>
+	 * 
+	 * @param options
+	 *            The {@link SaveOptions}
+	 * @return The {@link CompletableFuture} of the save, which never completes
+	 *         exceptionally
+	 */
+	CompletableFuture<Void> saveDownloaded(final SaveOptions options) {
+		final Path albumRoot = createRoot(options);
+		if (albumRoot == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		final SaveOptions trackOptions = options.copyWithRoot(albumRoot);
+		final List<CompletableFuture<Void>> trackSaves = new ArrayList<>();
+		for (final Track track : tracks()) {
+			trackSaves.add(track.saveDownloaded(trackOptions));
+		}
+
+		return CompletableFuture.allOf(trackSaves.toArray(new CompletableFuture<?>[trackSaves.size()]))
+				.thenRun(() -> finish(albumRoot, options));
+	}
+
+	/**
+	 * <p>
+	 * Creates the download of a {@linkplain SaveOptions#pipelined() pipelined}
+	 * save: each track is saved as soon as its own download finished, which
+	 * releases its data right away, and the set is finished after all of
+	 * them. The download is not started.
+	 * </p>
+	 * 
+	 * @param options
+	 *            The {@link SaveOptions}
+	 * @param saves
+	 *            Gets the future of the whole save added
+	 * @return The download, or {@code null} if the folder of the set cannot be
+	 *         created
+	 */
+	Download downloadPipelined(final SaveOptions options, final List<CompletableFuture<Void>> saves) {
+		final Path albumRoot = createRoot(options);
+		if (albumRoot == null) {
+			return null;
 		}
+
+		final SaveOptions trackOptions = options.copyWithRoot(albumRoot);
+		final List<CompletableFuture<Void>> trackSaves = new ArrayList<>();
+		download = (BundleDownload) new BundleDownload(this, 5, options.downloadOptions().scheduler()).listener(this);
+		synchronized (tracks) {
+			for (final Track track : tracks) {
+				final Download trackDownload = track.listener(download).download(options.downloadOptions());
+				trackSaves.add(trackDownload.future().handle((downloadedItem, e) -> {
+					// errors got reported as events, save what is there
+					return track.saveDownloaded(trackOptions);
+				}).thenCompose(Function.identity()));
+				download.add(trackDownload);
+			}
+		}
+		trackSaves.add(download.future().handle((downloadedItem, e) -> null));
+
+		saves.add(CompletableFuture.allOf(trackSaves.toArray(new CompletableFuture<?>[trackSaves.size()]))
+				.thenRun(() -> finish(albumRoot, options)));
+		return download;
+	}
+
+	/**
+	 * <p>
+	 * Finishes the save after all tracks are saved.
+	 * </p>
+	 */
+	private void finish(final Path albumRoot, final SaveOptions options) {
+		finishSave(albumRoot, options);
+		try {
+			options.target().albumFinished(albumRoot);
+		} catch (final IOException e) {
+			triggerError(e);
+		}
+		trigger(EventType.SAVE_FINISHED, this);
+	}
+
+	/**
+	 * <p>
+	 * Creates the folder of the set.
+	 * </p>
+	 * 
+	 * @return The folder, or {@code null} if it cannot be created
+	 */
+	private Path createRoot(final SaveOptions options) {
+		final Path albumRoot = rootOf(options);
+		trigger(EventType.SAVE_START, "saving album into folder [" + albumRoot + "]");
+		try {
+			options.target().createDirectories(albumRoot);
+		} catch (final IOException e) {
+			triggerError(e);
+			return null;
+		}
+		return albumRoot;
+	}
+
+	/**
+	 * <p>
+	 * Returns the folder of the set, as named by the {@link SaveOptions}.
+	 * </p>
+	 */
+	Path rootOf(final SaveOptions options) {
+		return options.nameOf(this);
+	}
+
+	/**
+	 * <p>
+	 * Gets called after the tracks are saved, to save whatever belongs to the
+	 * set as a whole.
+	 * </p>
+	 * 
+	 * @param albumRoot
+	 *            The folder of the set
+	 * @param options
+	 *            The {@link SaveOptions}
+	 */
+	void finishSave(final Path albumRoot, final SaveOptions options) {
+		// nothing else to save
 	}
 
 	/**
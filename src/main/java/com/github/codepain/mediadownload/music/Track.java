@@ -1,26 +1,20 @@
 package com.github.codepain.mediadownload.music;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URL;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import com.github.codepain.mediadownload.download.Download;
+import com.github.codepain.mediadownload.download.DownloadOptions;
 import com.github.codepain.mediadownload.download.Downloadable;
 import com.github.codepain.mediadownload.download.DownloadedItem;
 import com.github.codepain.mediadownload.download.SingleDownload;
 import com.github.codepain.mediadownload.listener.Event;
 import com.github.codepain.mediadownload.listener.EventType;
 import com.github.codepain.mediadownload.save.SaveOptions;
-import com.mpatric.mp3agic.ID3v1;
-import com.mpatric.mp3agic.ID3v2;
-import com.mpatric.mp3agic.ID3v24Tag;
-import com.mpatric.mp3agic.InvalidDataException;
-import com.mpatric.mp3agic.Mp3File;
-import com.mpatric.mp3agic.NotSupportedException;
-import com.mpatric.mp3agic.UnsupportedTagException;
 
 /**
  * <p>
@@ -43,10 +37,12 @@ public class Track extends Downloadable {
 
 	private String year;
 
-	private DownloadedItem albumArt;
+	private AlbumArt albumArt;
 
 	private DownloadedItem downloadedItem;
 
+	private String mimeType;
+
 	private boolean downloadFinished;
 
 	private Album album;
@@ -67,8 +63,8 @@ public class Track extends Downloadable {
 	}
 
 	@Override
-	public Download download() {
-		return new SingleDownload(this, downloadUrl).listener(this);
+	public Download download(final DownloadOptions options) {
+		return new SingleDownload(this, downloadUrl, options).listener(this);
 	}
 
 	@Override
@@ -77,115 +73,120 @@ public class Track extends Downloadable {
 			downloadFinished = true;
 		} else if (EventType.DOWNLOAD_FINISHED.equals(event.type())) {
 			downloadedItem = (DownloadedItem) event.eventObject();
+			mimeType = downloadedItem != null ? downloadedItem.mimeType() : null;
 			downloadFinished = true;
 		}
 	}
 
 	@Override
 	public void save(final SaveOptions options) {
-		if (downloadFinished) {
-			if (downloadedItem == null) {
-				// an error occurred during download, we cannot save anything
-				triggerError(new IOException("The download was erroneous, cannot save anything"));
-				return;
-			}
+		saveAsync(options).join();
+	}
 
+	@Override
+	public CompletableFuture<Void> saveAsync(final SaveOptions options) {
+		final CompletableFuture<Void> save;
+		if (downloadFinished) {
 			// already downloaded, just save it
-			final Path file = options.nameOf(this);
-			final Path tmpFile = options.root().resolve(file.getFileName() + ".tag");
-			trigger(EventType.SAVE_START, "saving tag file [" + tmpFile + "]");
-			try (final ByteArrayInputStream bis = new ByteArrayInputStream(downloadedItem.data())) {
-				Files.copy(bis, tmpFile, StandardCopyOption.REPLACE_EXISTING);
-				trigger(EventType.SAVE_FINISHED, tmpFile);
-				trigger(EventType.SAVE_START, "enriching tag file with IDv3 tags [" + tmpFile + " -> " + file + "]");
-				enrichWithMetaData(tmpFile, file);
-				trigger(EventType.SAVE_FINISHED, file);
-			} catch (final IOException e) {
-				triggerError(e);
-			}
+			save = saveDownloaded(options);
 		} else {
 			// not downloaded yet ...
 			// so start a download and save the item then
-			final Track that = this;
-			download().start().whenFinished(downloadItem -> that.save(options));
+			prefetchAlbumArt(options);
+			save = download(options.downloadOptions()).startAsync().handle((downloadedItem, e) -> {
+				// errors got reported as events, save what is there
+				return saveDownloaded(options);
+			}).thenCompose(Function.identity());
 		}
+		return save.thenRun(() -> flush(options));
 	}
 
-	private void enrichWithMetaData(final Path tagFile, final Path destFile) {
-		try {
-			final Mp3File mp3File = new Mp3File(tagFile.toFile());
-			if (mp3File.hasId3v1Tag()) {
-				final ID3v1 tag = mp3File.getId3v1Tag();
-				if (tag.getTitle() == null) {
-					tag.setTitle(title);
-				}
-				if (tag.getTrack() == null) {
-					tag.setTrack("" + index);
-				}
-				if (tag.getAlbum() == null && album != null) {
-					tag.setAlbum(album.title());
-				}
-				if (tag.getArtist() == null) {
-					tag.setArtist(artist != null ? artist : (album != null ? album.artist() : null));
-				}
-				if (tag.getYear() == null) {
-					tag.setYear(year);
-				}
-			} else {
-				final ID3v2 tag;
-				if (mp3File.hasId3v2Tag()) {
-					tag = mp3File.getId3v2Tag();
-				} else {
-					tag = new ID3v24Tag();
-					mp3File.setId3v2Tag(tag);
-				}
-				if (tag.getTitle() == null) {
-					tag.setTitle(title);
-				}
-				if (tag.getTrack() == null) {
-					tag.setTrack("" + index);
-				}
-				if (tag.getAlbum() == null && album != null) {
-					tag.setAlbum(album.title());
-				}
-				if (tag.getArtist() == null) {
-					tag.setArtist(artist != null ? artist : (album != null ? album.artist() : null));
-				}
-				if (tag.getAlbumArtist() == null) {
-					tag.setAlbumArtist((album != null ? album.artist() : null));
-				}
-				if (tag.getYear() == null) {
-					tag.setYear(year);
-				}
-				if (tag.getAlbumImage() == null) {
-					if (albumArt != null) {
-						tag.setAlbumImage(albumArt.data(), albumArt.mimeType());
-					} else if (album != null && album.albumArt() != null) {
-						tag.setAlbumImage(album.albumArt().data(), album.albumArt().mimeType());
+	/**
+	 * <p>
+	 * Saves the downloaded track by the {@linkplain SaveOptions#saveScheduler()
+	 * save scheduler}, waiting while it is full. Errors are reported as
+	 * events.
+	 * </p>
+	 * <p>
+	 * The future completes once the file is written to the
+	 * {@linkplain SaveOptions#target() target}, the
+	 * {@linkplain EventType#SAVE_FINISHED finished event} is not triggered
+	 * before the target completed the file, though, which may be after the
+	 * whole album is written.
+	 * </p>
+	 * <p>
+	 * If {@linkplain SaveOptions#pipelined() pipelined}, the downloaded data is
+	 * released once saved, so the track cannot be saved again.
+	 * </p>
+	 * 
+	 * @return The {@link CompletableFuture} of the save, which never completes
+	 *         exceptionally
+	 */
+	CompletableFuture<Void> saveDownloaded(final SaveOptions options) {
+		if (downloadedItem == null) {
+			// an error occurred during download or the data is gone after saving, we cannot save anything
+			triggerError(new IOException(mimeType != null ? "The data was released after saving, cannot save it again"
+					: "The download was erroneous, cannot save anything"));
+			return CompletableFuture.completedFuture(null);
+		}
+
+		final DownloadedItem item = downloadedItem;
+		final Path file = options.nameOf(this);
+		trigger(EventType.SAVE_START, "saving track with ID3 tags [" + file + "]");
+		final AlbumArt art = options.embedCoverArt() ? effectiveAlbumArt() : null;
+		final AlbumTagTemplate template = album != null ? album.tagTemplate(art)
+				: new AlbumTagTemplate(null, null, art);
+		final AtomicReference<CompletableFuture<Void>> completion = new AtomicReference<>();
+		return options.saveScheduler()
+				.submit(() -> new Id3TagWriter(this, template).plan(item),
+						plan -> completion.set(options.target().write(file, plan)))
+				.handle((plan, e) -> {
+					if (e != null) {
+						triggerError(e instanceof IOException ? (IOException) e
+								: new IOException("Unable to save " + this, e));
+						return null;
+					}
+
+					if (!plan.tagged()) {
+						// failed, but let's not be too angry about it, it's just meta data
+						trigger(EventType.ERROR, this + " Cannot write ID3 tags, saved the file as it is");
+					}
+					// a failure to complete the file is reported by whoever completes it
+					completion.get().thenRun(() -> trigger(EventType.SAVE_FINISHED, file));
+
+					if (options.pipelined()) {
+						// the data is on the disk now, so free any resources and
+						// let go of it; otherwise it is kept for saving again
+						if (downloadedItem == item) {
+							downloadedItem = null;
+						}
+						try {
+							item.release();
+						} catch (final IOException e1) {
+							trigger(EventType.ERROR, this + " Cannot release downloaded data: " + e1.getMessage());
+						}
 					}
-				}
-			}
-
-			mp3File.save(destFile.toString());
-		} catch (final UnsupportedTagException | InvalidDataException | IOException | NotSupportedException e) {
-			// failed, but let's not be too angry about it, it's just meta data
-			trigger(EventType.ERROR, this + " Cannot write ID3 tags: " + e.getMessage());
-
-			// just copy the original file
-			try {
-				Files.copy(tagFile, destFile, StandardCopyOption.REPLACE_EXISTING);
-			} catch (final IOException e1) {
-				trigger(EventType.ERROR, this + " Unable to copy track file, track is lost: " + e1.getMessage());
-			}
-		} finally {
-			try {
-				Files.deleteIfExists(tagFile);
-			} catch (final IOException e) {
-				trigger(EventType.ERROR, this + " Cannot delete tag file: " + e.getMessage());
-			}
+					return null;
+				});
+	}
+
+	/**
+	 * <p>
+	 * Starts fetching the album art in the background, if it is going to be
+	 * embedded.
+	 * </p>
+	 */
+	void prefetchAlbumArt(final SaveOptions options) {
+		final AlbumArt art = effectiveAlbumArt();
+		if (options.embedCoverArt() && art != null) {
+			art.fetchAsync(options.downloadOptions().scheduler().executor());
 		}
 	}
 
+	private AlbumArt effectiveAlbumArt() {
+		return albumArt != null ? albumArt : (album != null ? album.albumArtReference() : null);
+	}
+
 	/**
 	 * <p>
 	 * Returns the title of the track.
@@ -318,18 +319,51 @@ public class Track extends Downloadable {
 	 * @return The track with the cover art set, allowing for chaining
 	 */
 	public Track albumArt(final DownloadedItem albumArt) {
+		this.albumArt = albumArt != null ? new AlbumArt(albumArt) : null;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Sets the cover art for this track, which is fetched not before it is
+	 * needed.
+	 * </p>
+	 * 
+	 * @param albumArt
+	 *            The {@linkplain AlbumArt reference to the cover art} to set
+	 * @return The track with the cover art set, allowing for chaining
+	 */
+	public Track albumArt(final AlbumArt albumArt) {
 		this.albumArt = albumArt;
 		return this;
 	}
 
 	/**
 	 * <p>
-	 * Returns the {@linkplain DownloadedItem cover art}.
+	 * Returns the {@linkplain DownloadedItem cover art}, fetching it if that
+	 * has not been done yet.
 	 * </p>
 	 * 
-	 * @return
+	 * @return The cover art, or {@code null} if there is none or it cannot be
+	 *         fetched
 	 */
 	public DownloadedItem albumArt() {
+		try {
+			return albumArt != null ? albumArt.get() : null;
+		} catch (final IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@linkplain AlbumArt reference to the cover art}, without
+	 * fetching it.
+	 * </p>
+	 * 
+	 * @return
+	 */
+	public AlbumArt albumArtReference() {
 		return albumArt;
 	}
 
@@ -337,16 +371,13 @@ public class Track extends Downloadable {
 	 * <p>
 	 * Returns the MIME type of the downloaded track (for example
 	 * {@code audio/mp3}), or {@code null} if it has not been downloaded yet.
+	 * The MIME type stays known after the data is released by saving.
 	 * </p>
 	 * 
 	 * @return
 	 */
 	public String mimeType() {
-		if (downloadedItem != null) {
-			return downloadedItem.mimeType();
-		}
-
-		return null;
+		return mimeType;
 	}
 
 	@Override
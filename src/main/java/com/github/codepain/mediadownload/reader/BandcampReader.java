@@ -5,24 +5,24 @@ import java.net.URL;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-import javax.script.ScriptException;
-
-import org.jsoup.Jsoup;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
 import com.github.codepain.mediadownload.download.Downloadable;
-import com.github.codepain.mediadownload.download.DownloadedItem;
 import com.github.codepain.mediadownload.listener.Event;
 import com.github.codepain.mediadownload.listener.EventType;
 import com.github.codepain.mediadownload.music.Album;
+import com.github.codepain.mediadownload.music.AlbumArt;
 import com.github.codepain.mediadownload.music.Discography;
 import com.github.codepain.mediadownload.music.Track;
 
@@ -51,18 +51,18 @@ public class BandcampReader extends Reader {
 	@Override
 	public Downloadable fetchDownloadable() throws IOException {
 		trigger(EventType.READER_STATUS, "reading " + url);
-		final Document document = Jsoup.connect(url.toString()).get();
+		final Document document = fetchDocument(url);
 
 		final Element albumList = document.body().select("ol.music-grid").first();
 		if (albumList != null) {
-			final Discography discography = readDiscography(url);
+			final Discography discography = readDiscography(url, document);
 			if (discography.albums().isEmpty()) {
 				throw new IOException(Discography.class.getSimpleName() + " is empty");
 			}
 
 			return discography;
 		} else {
-			final Album album = readAlbum(url);
+			final Album album = readAlbum(url, document);
 			if (album == null) {
 				throw new IOException(Album.class.getSimpleName() + " is disqualified, because it is a sampler");
 			}
@@ -71,19 +71,35 @@ public class BandcampReader extends Reader {
 		}
 	}
 
-	private Discography readDiscography(final URL url) throws IOException {
+	/**
+	 * <p>
+	 * Reads all albums of the discography concurrently on the
+	 * {@linkplain ReaderOptions#scheduler() scheduler}, keeping their order.
+	 * An album that cannot be read is reported as an error and left out.
+	 * </p>
+	 */
+	private Discography readDiscography(final URL url, final Document document) throws IOException {
 		trigger(EventType.READER_STATUS, "reading discography [" + url + "]");
 		final Discography discography = new Discography(url);
 
-		final Document document = Jsoup.connect(url.toString()).get();
 		final Elements albumList = document.body().select("ol.music-grid").first().select("li a");
-		trigger(EventType.READER_STATUS, "reading " + albumList.size() + " album(s)");
-		int index = 0;
+		final List<URL> albumUrls = new ArrayList<>();
 		for (final Element albumItem : albumList) {
-			index++;
-			final URL albumUrl = new URL(albumItem.attr("abs:href"));
-			trigger(EventType.READER_STATUS, "reading album " + index + "/" + albumList.size() + " [" + albumUrl + "]");
-			final Album album = readAlbum(albumUrl);
+			albumUrls.add(new URL(albumItem.attr("abs:href")));
+		}
+		trigger(EventType.READER_STATUS, "reading " + albumUrls.size() + " album(s)");
+
+		final AtomicInteger count = new AtomicInteger();
+		final List<Album> albums = readConcurrently(albumUrls, albumUrl -> {
+			trigger(EventType.READER_STATUS,
+					"reading album " + count.incrementAndGet() + "/" + albumUrls.size() + " [" + albumUrl + "]");
+			final Album album = readAlbum(albumUrl, fetchDocument(albumUrl));
+			if (album != null) {
+				discovered(album);
+			}
+			return album;
+		});
+		for (final Album album : albums) {
 			if (album != null) {
 				discography.add(album);
 			}
@@ -93,9 +109,8 @@ public class BandcampReader extends Reader {
 		return discography;
 	}
 
-	private Album readAlbum(final URL url) throws IOException {
+	private Album readAlbum(final URL url, final Document document) throws IOException {
 		trigger(EventType.READER_STATUS, "reading album [" + url + "]");
-		final Document document = Jsoup.connect(url.toString()).get();
 
 		// check whether it is a sampler
 		if (!options.loadSamplers()) {
@@ -117,80 +132,79 @@ public class BandcampReader extends Reader {
 		for (final Element script : scripts) {
 			final String js = script.html();
 			if (js.contains("var TralbumData")) {
-				final String[] lines = js.split("\n", -1);
-				final StringBuilder sb = new StringBuilder();
-				boolean gather = false;
-				for (final String line : lines) {
-					if (line.contains("var TralbumData")) {
-						sb.append(line);
-						sb.append("\n");
-						gather = true;
-					} else if (gather) {
-						if (line.contains("};")) {
-							sb.append(line.substring(0, line.indexOf(';')));
-							break;
-						} else if (!line.trim().startsWith("//")) {
-							sb.append(line);
-							sb.append("\n");
-						}
-					}
+				final JSONObject tralbumData;
+				try {
+					tralbumData = (JSONObject) JsObjectParser.parseAssignment(js, "TralbumData");
+				} catch (final ParseException | ClassCastException e) {
+					throw new IOException("Unable to read album: " + url, e);
 				}
 
-				final ScriptEngine engine = new ScriptEngineManager().getEngineByName("nashorn");
-				try {
-					engine.eval(sb.toString());
-					album.title((String) engine.eval("TralbumData.current.title"));
-					final String artist = (String) engine.eval("TralbumData.artist");
-					album.artist(artist);
+				final JSONObject current = tralbumData.get("current") instanceof JSONObject
+						? (JSONObject) tralbumData.get("current")
+						: new JSONObject();
+				album.title((String) current.get("title"));
+				final String artist = (String) tralbumData.get("artist");
+				album.artist(artist);
 
-					// read year of release date
-					String year = null;
-					try {
-						final Date releaseDate = df.parse((String) engine.eval("TralbumData.current.release_date"));
-						final Calendar cal = Calendar.getInstance();
-						cal.setTime(releaseDate);
-						year = "" + cal.get(Calendar.YEAR);
-					} catch (final NullPointerException | ParseException e) {
-						// nevermind, it's just the year
-					}
+				// read year of release date
+				String year = null;
+				try {
+					final Date releaseDate = df.parse((String) current.get("release_date"));
+					final Calendar cal = Calendar.getInstance();
+					cal.setTime(releaseDate);
+					year = "" + cal.get(Calendar.YEAR);
+				} catch (final NullPointerException | ClassCastException | ParseException e) {
+					// nevermind, it's just the year
+				}
 
-					// album art
-					try {
-						final URL albumArt = new URL((String) engine.eval("TralbumData.artFullsizeUrl"));
-						final DownloadedItem downloadedItem = download(albumArt);
-						album.albumArt(downloadedItem);
-					} catch (final NullPointerException | IOException e) {
-						// okay, let's at least try to get the thumb
+				// album art, fetched when needed
+				URL albumArtThumb = null;
+				try {
+					albumArtThumb = new URL((String) tralbumData.get("artThumbURL"));
+				} catch (final NullPointerException | ClassCastException | IOException e) {
+					// nevermind, it's just meta information
+				}
+				try {
+					final URL thumb = albumArtThumb;
+					album.albumArt(new AlbumArt(new URL((String) tralbumData.get("artFullsizeUrl")), albumArt -> {
 						try {
-							final URL albumArtThumb = new URL((String) engine.eval("TralbumData.artThumbURL"));
-							final DownloadedItem downloadedItem = download(albumArtThumb);
-							album.albumArt(downloadedItem);
-						} catch (final NullPointerException | IOException e1) {
-							// nevermind, it's just meta information
+							return download(albumArt);
+						} catch (final IOException e) {
+							if (thumb == null) {
+								throw e;
+							}
+							// okay, let's at least try to get the thumb
+							return download(thumb);
 						}
+					}));
+				} catch (final NullPointerException | ClassCastException | IOException e) {
+					if (albumArtThumb != null) {
+						album.albumArt(albumArt(albumArtThumb));
 					}
+				}
 
-					for (int i = 0; i < (long) engine.eval("TralbumData.trackinfo.length"); i++) {
-						try {
-							final String title = (String) engine.eval("TralbumData.trackinfo[" + i + "].title");
-							final URL trackUrl = new URL(album.url().getProtocol() + ":"
-									+ (String) engine.eval("TralbumData.trackinfo[" + i + "].file['mp3-128']"));
-
-							final Track track = new Track(title, trackUrl);
-							track.artist(artist);
-							final Object trackNum = engine.eval("TralbumData.trackinfo[" + i + "].track_num");
-							if (trackNum != null) {
-								track.index((int) trackNum);
-							}
-							track.year(year);
-
-							album.add(track);
-						} catch (final ScriptException e) {
-							trigger(EventType.ERROR, "Unable to interpret track #" + i + " (" + e.getMessage() + ")");
+				final JSONArray trackinfo = tralbumData.get("trackinfo") instanceof JSONArray
+						? (JSONArray) tralbumData.get("trackinfo")
+						: new JSONArray();
+				for (int i = 0; i < trackinfo.size(); i++) {
+					try {
+						final JSONObject info = (JSONObject) trackinfo.get(i);
+						final String title = (String) info.get("title");
+						final URL trackUrl = new URL(album.url().getProtocol() + ":"
+								+ (String) ((JSONObject) info.get("file")).get("mp3-128"));
+
+						final Track track = new Track(title, trackUrl);
+						track.artist(artist);
+						final Object trackNum = info.get("track_num");
+						if (trackNum instanceof Number) {
+							track.index(((Number) trackNum).intValue());
 						}
+						track.year(year);
+
+						album.add(track);
+					} catch (final NullPointerException | ClassCastException | IOException e) {
+						trigger(EventType.ERROR, "Unable to interpret track #" + i + " (" + e + ")");
 					}
-				} catch (final ScriptException e) {
-					throw new IOException("Unable to read album: " + url, e);
 				}
 
 				break;
@@ -0,0 +1,257 @@
+package com.github.codepain.mediadownload.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.codepain.mediadownload.download.Downloadable;
+import com.github.codepain.mediadownload.listener.Listener;
+import com.github.codepain.mediadownload.music.Album;
+import com.github.codepain.mediadownload.music.Discography;
+import com.github.codepain.mediadownload.music.LooseTrackSet;
+import com.github.codepain.mediadownload.music.Track;
+import com.github.codepain.mediadownload.save.SaveOptions;
+
+/**
+ * <p>
+ * The {@linkplain Album albums} and {@linkplain Track tracks} of a web page,
+ * as they are discovered by a {@linkplain Reader#readIncrementally() reader
+ * reading incrementally}.
+ * </p>
+ * <p>
+ * Discovering runs on a separate thread, so the first items can be downloaded
+ * while the reader is still paging through the rest. If the consumer falls
+ * behind, discovering pauses. An album is handed out as a whole, a track
+ * only if it does not belong to an album; all items are handed out exactly
+ * once.
+ * </p>
+ *
+ * <pre>
+ * try (DiscoveryStream stream = MediaDownload.readIncrementally(url)) {
+ * 	stream.saveAll(new SaveOptions(root));
+ * }
+ * </pre>
+ *
+ * @author codepain
+ *
+ */
+public class DiscoveryStream implements Iterator<Downloadable>, Closeable {
+
+	private static final int CAPACITY = 16;
+
+	private static final long OFFER_WAIT_MILLIS = 100;
+
+	private static final Object END = new Object();
+
+	private static final AtomicInteger threadCount = new AtomicInteger();
+
+	private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(CAPACITY);
+
+	private final Set<Downloadable> discovered = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	private final Listener listener;
+
+	private volatile boolean closed;
+
+	private Thread thread;
+
+	private Object next;
+
+	/**
+	 * <p>
+	 * Discovers the items, returning the whole {@linkplain Downloadable
+	 * downloadable item} at last.
+	 * </p>
+	 */
+	@FunctionalInterface
+	interface Discoverer {
+
+		Downloadable discover() throws IOException;
+	}
+
+	DiscoveryStream(final Listener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * <p>
+	 * Starts discovering on a separate thread. Whatever part of the final
+	 * result is not handed out yet, is handed out at the end.
+	 * </p>
+	 */
+	void start(final Discoverer discoverer) {
+		thread = new Thread(() -> {
+			try {
+				final Downloadable downloadable = discoverer.discover();
+				if (downloadable != null) {
+					for (final Downloadable part : partsOf(downloadable)) {
+						offer(part);
+					}
+				}
+				queue.put(END);
+			} catch (final IOException e) {
+				putQuietly(e);
+			} catch (final InterruptedException e) {
+				// closed
+			} catch (final RuntimeException e) {
+				putQuietly(new IOException("Discovering failed", e));
+			}
+		}, "media-download-discovery-" + threadCount.incrementAndGet());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void putQuietly(final IOException e) {
+		try {
+			queue.put(e);
+		} catch (final InterruptedException e1) {
+			// closed
+		}
+	}
+
+	/**
+	 * <p>
+	 * Hands out a discovered item, waiting while the consumer is behind.
+	 * Items handed out already are ignored.
+	 * </p>
+	 * <p>
+	 * Readers also call this from their workers on the shared download pool,
+	 * which are not interrupted on {@link #close()}; so waiting is done in
+	 * short steps, checking whether the stream got closed in between.
+	 * </p>
+	 *
+	 * @throws InterruptedIOException
+	 *             If the stream got closed meanwhile
+	 */
+	void offer(final Downloadable downloadable) throws InterruptedIOException {
+		synchronized (discovered) {
+			if (!discovered.add(downloadable)) {
+				return;
+			}
+		}
+
+		try {
+			while (!closed) {
+				if (queue.offer(downloadable, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+					return;
+				}
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		throw new InterruptedIOException("Discovery stream is closed");
+	}
+
+	private static List<Downloadable> partsOf(final Downloadable downloadable) {
+		final List<Downloadable> parts = new ArrayList<>();
+		if (downloadable instanceof Discography) {
+			parts.addAll(((Discography) downloadable).albums());
+		} else if (downloadable instanceof Album || !(downloadable instanceof LooseTrackSet)) {
+			parts.add(downloadable);
+		} else {
+			parts.addAll(((LooseTrackSet) downloadable).tracks());
+		}
+		return parts;
+	}
+
+	/**
+	 * <p>
+	 * Returns whether or not there are more items, waiting until the next one
+	 * is discovered or discovering finished.
+	 * </p>
+	 *
+	 * @throws UncheckedIOException
+	 *             If discovering failed
+	 */
+	@Override
+	public boolean hasNext() {
+		if (next == null) {
+			try {
+				next = queue.take();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new UncheckedIOException(new InterruptedIOException("Interrupted while discovering"));
+			}
+		}
+
+		if (next instanceof IOException) {
+			throw new UncheckedIOException((IOException) next);
+		}
+		return next != END;
+	}
+
+	@Override
+	public Downloadable next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		final Downloadable downloadable = (Downloadable) next;
+		next = null;
+		return downloadable.listener(listener);
+	}
+
+	/**
+	 * <p>
+	 * Downloads and saves every item as soon as it is discovered, and waits
+	 * until all of them are saved. The items are saved into the root of the
+	 * {@linkplain SaveOptions save options}, i.e. tracks which are not part of
+	 * an album are not put into a folder of their own.
+	 * </p>
+	 * <p>
+	 * Only the calling thread waits, the items are saved by their
+	 * {@linkplain Downloadable#saveAsync(SaveOptions) asynchronous saves},
+	 * {@linkplain SaveOptions#pipelined() pipelined} if the options say so.
+	 * </p>
+	 *
+	 * @param options
+	 *            The {@link SaveOptions}
+	 * @throws IOException
+	 *             If discovering failed; the items discovered until then are
+	 *             saved anyway
+	 */
+	public void saveAll(final SaveOptions options) throws IOException {
+		final List<CompletableFuture<Void>> saves = new ArrayList<>();
+		IOException failure = null;
+		try {
+			while (hasNext()) {
+				saves.add(next().saveAsync(options));
+			}
+		} catch (final UncheckedIOException e) {
+			failure = e.getCause();
+		}
+
+		CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[saves.size()])).join();
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Stops discovering. Items that are not handed out yet are dropped.
+	 * </p>
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		if (thread != null) {
+			thread.interrupt();
+		}
+		queue.clear();
+		next = END;
+	}
+}
@@ -0,0 +1,185 @@
+package com.github.codepain.mediadownload.reader;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import com.github.codepain.mediadownload.download.DownloadedItem;
+
+/**
+ * <p>
+ * Caches the {@linkplain DownloadedItem items} a {@linkplain Reader reader}
+ * {@linkplain Reader#download(URL) downloads} along the way, i.e. static
+ * resources like cover art, which are often requested several times while
+ * reading a single album. Cached items never expire, so API responses and
+ * anything else that changes are fetched without this cache.
+ * </p>
+ * <p>
+ * The cache is keyed by URL and bounded by the total size of the cached items;
+ * the least recently used items are evicted first. Concurrent requests of the
+ * same URL are collapsed: only the first one fetches, all others wait for its
+ * result and get the very same item, i.e. the same buffer.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+public class DownloadCache {
+
+	private static final long DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+
+	private static final DownloadCache SHARED = new DownloadCache(DEFAULT_MAX_BYTES);
+
+	private final long maxBytes;
+
+	private final LinkedHashMap<String, DownloadedItem> items = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long size;
+
+	private final ConcurrentMap<String, CompletableFuture<DownloadedItem>> pendingFetches = new ConcurrentHashMap<>();
+
+	/**
+	 * <p>
+	 * Fetches an item that is not cached yet.
+	 * </p>
+	 */
+	@FunctionalInterface
+	public interface Fetcher {
+
+		DownloadedItem fetch(URL url) throws IOException;
+	}
+
+	/**
+	 * <p>
+	 * Constructs a {@link DownloadCache} holding items up to the specified
+	 * total size. A size of {@code 0} disables caching, but still collapses
+	 * concurrent requests.
+	 * </p>
+	 *
+	 * @param maxBytes
+	 *            The maximum total size of the cached items
+	 * @throws IllegalArgumentException
+	 *             If the size is negative
+	 */
+	public DownloadCache(final long maxBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("Size of the cache must not be negative");
+		}
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * <p>
+	 * Returns the process-wide {@link DownloadCache}, which holds up to 32 MB.
+	 * </p>
+	 *
+	 * @return The shared {@link DownloadCache}
+	 */
+	public static DownloadCache shared() {
+		return SHARED;
+	}
+
+	/**
+	 * <p>
+	 * Returns the cached item of the {@link URL}, or fetches it by the
+	 * {@link Fetcher}. If the URL is being fetched by another thread already,
+	 * this call waits for that result instead.
+	 * </p>
+	 *
+	 * @param url
+	 *            The {@link URL} of the item
+	 * @param fetcher
+	 *            The {@link Fetcher} to use, if the item is not cached
+	 * @return The {@linkplain DownloadedItem item}
+	 * @throws IOException
+	 *             If fetching fails; waiting requests fail as well
+	 */
+	public DownloadedItem get(final URL url, final Fetcher fetcher) throws IOException {
+		// URL.equals() resolves the host, so use the string as key
+		final String key = url.toString();
+		DownloadedItem item = cached(key);
+		if (item != null) {
+			return item;
+		}
+
+		final CompletableFuture<DownloadedItem> fetch = new CompletableFuture<>();
+		final CompletableFuture<DownloadedItem> pendingFetch = pendingFetches.putIfAbsent(key, fetch);
+		if (pendingFetch != null) {
+			return await(url, pendingFetch);
+		}
+
+		try {
+			// it might have been cached right before we got here
+			item = cached(key);
+			if (item == null) {
+				item = fetcher.fetch(url);
+				put(key, item);
+			}
+			fetch.complete(item);
+			return item;
+		} catch (final IOException | RuntimeException e) {
+			fetch.completeExceptionally(e);
+			throw e;
+		} finally {
+			pendingFetches.remove(key, fetch);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Removes all items from the cache.
+	 * </p>
+	 */
+	public synchronized void clear() {
+		items.clear();
+		size = 0;
+	}
+
+	/**
+	 * <p>
+	 * Returns the total size of the cached items.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public synchronized long size() {
+		return size;
+	}
+
+	private synchronized DownloadedItem cached(final String key) {
+		return items.get(key);
+	}
+
+	private synchronized void put(final String key, final DownloadedItem item) {
+		if (item.size() > maxBytes) {
+			return;
+		}
+
+		final DownloadedItem former = items.put(key, item);
+		size += item.size() - (former == null ? 0 : former.size());
+		for (final Iterator<Map.Entry<String, DownloadedItem>> iterator = items.entrySet().iterator(); size > maxBytes
+				&& iterator.hasNext();) {
+			size -= iterator.next().getValue().size();
+			iterator.remove();
+		}
+	}
+
+	private static DownloadedItem await(final URL url, final CompletableFuture<DownloadedItem> fetch)
+			throws IOException {
+		try {
+			return fetch.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for " + url);
+		} catch (final ExecutionException e) {
+			throw new IOException("Error reading " + url, e.getCause());
+		}
+	}
+}
@@ -1,24 +1,29 @@
 package com.github.codepain.mediadownload.reader;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.jsoup.Connection.Method;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
 import com.github.codepain.mediadownload.download.Downloadable;
-import com.github.codepain.mediadownload.download.DownloadedItem;
 import com.github.codepain.mediadownload.listener.Event;
 import com.github.codepain.mediadownload.listener.EventType;
 import com.github.codepain.mediadownload.music.LooseTrackSet;
 import com.github.codepain.mediadownload.music.Track;
+import com.github.codepain.mediadownload.transport.Request;
 
 /**
  * <p>
@@ -41,7 +46,7 @@ public class HearThisAtReader extends Reader {
 	@Override
 	protected Downloadable fetchDownloadable() throws IOException {
 		trigger(EventType.READER_STATUS, "reading " + url);
-		final Document document = Jsoup.connect(url.toString()).get();
+		final Document document = fetchDocument(url);
 
 		// check for a single track
 		final Element singleTrackElement = document.body().select(".playlist.top [data-mp3]").first();
@@ -52,10 +57,7 @@ public class HearThisAtReader extends Reader {
 			final URL coverArtUrl = new URL(document.select("meta[property=og:image]").first().attr("abs:content"));
 			final String title = document.select("meta[property=og:title]").first().attr("content");
 
-			// download cover art
-			final DownloadedItem coverArt = download(coverArtUrl);
-
-			return new Track(title, downloadUrl).artist(artist).albumArt(coverArt);
+			return new Track(title, downloadUrl).artist(artist).albumArt(albumArt(coverArtUrl));
 		}
 
 		// fetch all tracks we can get
@@ -81,41 +83,53 @@ public class HearThisAtReader extends Reader {
 				params.put("filter", "");
 				params.put("searchtext", "");
 
-				// loop, loop, loop, ...
-				int index = 0;
-				Document tracks = null;
+				// loop, loop, loop, ... with the next pages already on their way
+				final int pageSize = options.pageSize();
+				final Deque<PageFetch> pages = new ArrayDeque<>();
+				int nextPage = 0;
 				final LooseTrackSet looseTrackSet = new LooseTrackSet(url);
-				do {
-					params.put("min", "" + index * 10);
-					params.put("max", "" + (index + 1) * 10);
-
-					tracks = Jsoup.parseBodyFragment(
-							injectCommon(Jsoup.connect(SERVICE_URL).data(params).method(Method.POST)).execute().body());
-					trackElements = tracks.select("[data-mp3]");
-					for (final Element trackElement : trackElements) {
-						final URL downloadUrl = new URL(trackElement.attr("abs:data-mp3"));
-						final Element parent = trackElement.parent();
-						final String title = parent.attr("data-playlist-title");
-						final Track track = new Track(title, downloadUrl);
-
-						// artist
-						final String artist = parent.attr("data-playlist-author").substring("by ".length());
-						track.artist(artist);
-
-						// download cover art
-						try {
-							final URL coverArtUrl = new URL(parent.attr("abs:data-playlist-image"));
-							final DownloadedItem coverArt = download(coverArtUrl);
-							track.albumArt(coverArt);
-						} catch (final IOException e) {
-							// nevermind, not that bad
+				try {
+					do {
+						while (pages.size() <= options.prefetchPages()) {
+							params.put("min", "" + nextPage * pageSize);
+							params.put("max", "" + (nextPage + 1) * pageSize);
+							nextPage++;
+							final PageFetch page = new PageFetch(
+									injectCommon(new Request(new URL(SERVICE_URL)).method("POST").data(params)));
+							options.scheduler().executor().execute(page);
+							pages.add(page);
 						}
 
-						looseTrackSet.add(track);
+						final Document tracks = Jsoup.parseBodyFragment(pages.poll().get());
+						trackElements = tracks.select("[data-mp3]");
+						for (final Element trackElement : trackElements) {
+							final URL downloadUrl = new URL(trackElement.attr("abs:data-mp3"));
+							final Element parent = trackElement.parent();
+							final String title = parent.attr("data-playlist-title");
+							final Track track = new Track(title, downloadUrl);
+
+							// artist
+							final String artist = parent.attr("data-playlist-author").substring("by ".length());
+							track.artist(artist);
+
+							// cover art, fetched when needed
+							try {
+								track.albumArt(albumArt(new URL(parent.attr("abs:data-playlist-image"))));
+							} catch (final IOException e) {
+								// nevermind, not that bad
+							}
+
+							looseTrackSet.add(track);
+							discovered(track);
+						}
+					} while (!trackElements.isEmpty());
+				} finally {
+					// the pages beyond the last one are not needed, neither
+					// are any pages after a failure
+					for (final PageFetch page : pages) {
+						page.cancel();
 					}
-
-					index++;
-				} while (!trackElements.isEmpty());
+				}
 
 				return looseTrackSet;
 			}
@@ -131,11 +145,9 @@ public class HearThisAtReader extends Reader {
 				final String artist = parent.attr("data-playlist-author").substring("by ".length());
 				track.artist(artist);
 
-				// download cover art
+				// cover art, fetched when needed
 				try {
-					final URL coverArtUrl = new URL(parent.attr("abs:data-playlist-image"));
-					final DownloadedItem coverArt = download(coverArtUrl);
-					track.albumArt(coverArt);
+					track.albumArt(albumArt(new URL(parent.attr("abs:data-playlist-image"))));
 				} catch (final IOException e) {
 					// nevermind, not that bad
 				}
@@ -149,6 +161,56 @@ public class HearThisAtReader extends Reader {
 		throw new IOException("Unable to interpret [" + url + "]");
 	}
 
+	/**
+	 * <p>
+	 * The fetch of a page, which is run by the scheduler or, if it has not
+	 * started yet when the page is needed, by the thread needing it. So
+	 * paging never waits for a busy scheduler.
+	 * </p>
+	 */
+	private class PageFetch implements Runnable {
+
+		private final Request request;
+
+		private final AtomicBoolean started = new AtomicBoolean();
+
+		private final CompletableFuture<String> page = new CompletableFuture<>();
+
+		PageFetch(final Request request) {
+			this.request = request;
+		}
+
+		@Override
+		public void run() {
+			if (started.compareAndSet(false, true)) {
+				try {
+					page.complete(fetchString(request));
+				} catch (final IOException | RuntimeException e) {
+					page.completeExceptionally(e);
+				}
+			}
+		}
+
+		String get() throws IOException {
+			run();
+			try {
+				return page.get();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while fetching page of [" + url + "]");
+			} catch (final ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw new IOException("Unable to fetch page of [" + url + "]", e.getCause());
+			}
+		}
+
+		void cancel() {
+			started.set(true);
+		}
+	}
+
 	@Override
 	protected void onEvent(final Event event) {
 		// doing nothing for now
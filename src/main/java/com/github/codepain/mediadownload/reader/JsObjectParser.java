@@ -0,0 +1,420 @@
+package com.github.codepain.mediadownload.reader;
+
+import java.text.ParseException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * <p>
+ * Parses JavaScript object literals as they are embedded in web pages, like
+ * the {@code TralbumData} of Bandcamp or the hydration data of SoundCloud,
+ * into the same tree a JSON parser creates: {@link JSONObject},
+ * {@link JSONArray}, {@link String}, {@link Long}, {@link Double},
+ * {@link Boolean} and {@code null}.
+ * </p>
+ * <p>
+ * Being a superset of JSON, object literals may contain unquoted keys, single
+ * quoted strings, comments, trailing commas, {@code undefined} and string
+ * concatenations, which are all accepted. Any other expression (like a
+ * function call) is skipped and results in {@code null}, instead of being
+ * evaluated.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+final class JsObjectParser {
+
+	private final String source;
+
+	private int position;
+
+	private JsObjectParser(final String source, final int position) {
+		this.source = source;
+		this.position = position;
+	}
+
+	/**
+	 * <p>
+	 * Parses the value at the beginning of the source.
+	 * </p>
+	 *
+	 * @param source
+	 *            The JavaScript source
+	 * @return The parsed value
+	 * @throws ParseException
+	 *             If the source is no valid value
+	 */
+	static Object parse(final String source) throws ParseException {
+		return new JsObjectParser(source, 0).value();
+	}
+
+	/**
+	 * <p>
+	 * Parses the value assigned to the variable within the source, e.g. the
+	 * object literal of {@code var TralbumData = {...};}.
+	 * </p>
+	 *
+	 * @param source
+	 *            The JavaScript source
+	 * @param variable
+	 *            The name of the variable
+	 * @return The parsed value
+	 * @throws ParseException
+	 *             If there is no assignment to the variable or the value is
+	 *             not valid
+	 */
+	static Object parseAssignment(final String source, final String variable) throws ParseException {
+		final Matcher matcher = Pattern.compile("(?<![\\w$.])" + Pattern.quote(variable) + "\\s*=(?!=)\\s*")
+				.matcher(source);
+		if (!matcher.find()) {
+			throw new ParseException("No assignment to " + variable, 0);
+		}
+		return new JsObjectParser(source, matcher.end()).value();
+	}
+
+	/**
+	 * <p>
+	 * Parses a value, including a concatenation by {@code +}.
+	 * </p>
+	 */
+	private Object value() throws ParseException {
+		Object value = singleValue();
+		skipWhitespace();
+		while (position < source.length() && source.charAt(position) == '+') {
+			position++;
+			final Object next = singleValue();
+			if (value instanceof String || next instanceof String) {
+				value = String.valueOf(value) + String.valueOf(next);
+			} else if (value instanceof Long && next instanceof Long) {
+				value = (Long) value + (Long) next;
+			} else if (value instanceof Number && next instanceof Number) {
+				value = ((Number) value).doubleValue() + ((Number) next).doubleValue();
+			} else {
+				value = null;
+			}
+			skipWhitespace();
+		}
+		return value;
+	}
+
+	private Object singleValue() throws ParseException {
+		skipWhitespace();
+		if (position >= source.length()) {
+			throw error("Unexpected end");
+		}
+
+		final char c = source.charAt(position);
+		if (c == '{') {
+			return object();
+		} else if (c == '[') {
+			return array();
+		} else if (c == '"' || c == '\'') {
+			return string();
+		} else if (c == '-' || c == '.' || Character.isDigit(c)) {
+			return number();
+		} else if (Character.isJavaIdentifierStart(c)) {
+			final int start = position;
+			final String identifier = identifier();
+			skipWhitespace();
+			final boolean accessed = position < source.length() && "(.[".indexOf(source.charAt(position)) >= 0;
+			if (!accessed) {
+				switch (identifier) {
+				case "true":
+					return Boolean.TRUE;
+				case "false":
+					return Boolean.FALSE;
+				case "null":
+				case "undefined":
+					return null;
+				default:
+					break;
+				}
+			}
+			position = start;
+		}
+
+		skipExpression();
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private JSONObject object() throws ParseException {
+		final JSONObject object = new JSONObject();
+		position++;
+		while (true) {
+			skipWhitespace();
+			if (position >= source.length()) {
+				throw error("Unterminated object");
+			}
+
+			char c = source.charAt(position);
+			if (c == '}') {
+				position++;
+				return object;
+			}
+
+			final String key;
+			if (c == '"' || c == '\'') {
+				key = string();
+			} else if (Character.isJavaIdentifierPart(c)) {
+				key = identifier();
+			} else {
+				throw error("Unexpected character '" + c + "' instead of key");
+			}
+
+			skipWhitespace();
+			if (position >= source.length() || source.charAt(position) != ':') {
+				throw error("Expected ':' after key " + key);
+			}
+			position++;
+			object.put(key, value());
+
+			skipWhitespace();
+			c = position < source.length() ? source.charAt(position) : 0;
+			if (c == ',') {
+				position++;
+			} else if (c != '}') {
+				throw error("Expected ',' or '}' in object");
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private JSONArray array() throws ParseException {
+		final JSONArray array = new JSONArray();
+		position++;
+		while (true) {
+			skipWhitespace();
+			if (position >= source.length()) {
+				throw error("Unterminated array");
+			}
+
+			char c = source.charAt(position);
+			if (c == ']') {
+				position++;
+				return array;
+			} else if (c == ',') {
+				// a hole
+				position++;
+				array.add(null);
+				continue;
+			}
+
+			array.add(value());
+
+			skipWhitespace();
+			c = position < source.length() ? source.charAt(position) : 0;
+			if (c == ',') {
+				position++;
+			} else if (c != ']') {
+				throw error("Expected ',' or ']' in array");
+			}
+		}
+	}
+
+	private String string() throws ParseException {
+		final char quote = source.charAt(position++);
+		final StringBuilder sb = new StringBuilder();
+		while (position < source.length()) {
+			final char c = source.charAt(position++);
+			if (c == quote) {
+				return sb.toString();
+			} else if (c != '\\') {
+				sb.append(c);
+			} else if (position < source.length()) {
+				final char escaped = source.charAt(position++);
+				switch (escaped) {
+				case 'n':
+					sb.append('\n');
+					break;
+				case 't':
+					sb.append('\t');
+					break;
+				case 'r':
+					sb.append('\r');
+					break;
+				case 'b':
+					sb.append('\b');
+					break;
+				case 'f':
+					sb.append('\f');
+					break;
+				case 'v':
+					sb.append('\u000b');
+					break;
+				case '0':
+					sb.append('\0');
+					break;
+				case 'u':
+					sb.append((char) hex(4));
+					break;
+				case 'x':
+					sb.append((char) hex(2));
+					break;
+				case '\n':
+					// line continuation
+					break;
+				default:
+					sb.append(escaped);
+					break;
+				}
+			}
+		}
+
+		throw error("Unterminated string");
+	}
+
+	private int hex(final int digits) throws ParseException {
+		if (position + digits > source.length()) {
+			throw error("Incomplete escape sequence");
+		}
+		try {
+			final int value = Integer.parseInt(source.substring(position, position + digits), 16);
+			position += digits;
+			return value;
+		} catch (final NumberFormatException e) {
+			throw error("Invalid escape sequence");
+		}
+	}
+
+	private Number number() throws ParseException {
+		final int start = position;
+		if (source.charAt(position) == '-') {
+			position++;
+		}
+		if (source.startsWith("0x", position) || source.startsWith("0X", position)) {
+			position += 2;
+			final int digits = position;
+			while (position < source.length() && Character.digit(source.charAt(position), 16) >= 0) {
+				position++;
+			}
+			try {
+				final long value = Long.parseLong(source.substring(digits, position), 16);
+				return source.charAt(start) == '-' ? -value : value;
+			} catch (final NumberFormatException e) {
+				throw error("Invalid number");
+			}
+		}
+
+		boolean integral = true;
+		while (position < source.length()) {
+			final char c = source.charAt(position);
+			if (Character.isDigit(c)) {
+				position++;
+			} else if (c == '.' || c == 'e' || c == 'E'
+					|| ((c == '+' || c == '-') && "eE".indexOf(source.charAt(position - 1)) >= 0)) {
+				integral = false;
+				position++;
+			} else {
+				break;
+			}
+		}
+
+		final String number = source.substring(start, position);
+		try {
+			if (integral) {
+				try {
+					return Long.parseLong(number);
+				} catch (final NumberFormatException e) {
+					// too large, so it becomes a double
+				}
+			}
+			return Double.parseDouble(number);
+		} catch (final NumberFormatException e) {
+			throw error("Invalid number " + number);
+		}
+	}
+
+	private String identifier() {
+		final int start = position;
+		while (position < source.length() && Character.isJavaIdentifierPart(source.charAt(position))) {
+			position++;
+		}
+		return source.substring(start, position);
+	}
+
+	/**
+	 * <p>
+	 * Skips an expression that cannot be parsed, up to the next {@code ,},
+	 * {@code ;} or closing bracket outside of any brackets or strings.
+	 * </p>
+	 */
+	private void skipExpression() throws ParseException {
+		final int start = position;
+		int depth = 0;
+		while (position < source.length()) {
+			final char c = source.charAt(position);
+			if (c == '"' || c == '\'' || c == '`') {
+				skipString(c);
+				continue;
+			} else if (c == '/' && skipComment()) {
+				continue;
+			} else if (c == '(' || c == '[' || c == '{') {
+				depth++;
+			} else if (c == ')' || c == ']' || c == '}') {
+				if (depth == 0) {
+					break;
+				}
+				depth--;
+			} else if ((c == ',' || c == ';') && depth == 0) {
+				break;
+			}
+			position++;
+		}
+
+		if (position == start) {
+			throw error("Unexpected character '" + source.charAt(position) + "'");
+		}
+	}
+
+	private void skipString(final char quote) {
+		position++;
+		while (position < source.length()) {
+			final char c = source.charAt(position++);
+			if (c == '\\') {
+				position++;
+			} else if (c == quote) {
+				return;
+			}
+		}
+	}
+
+	private void skipWhitespace() {
+		while (position < source.length()) {
+			final char c = source.charAt(position);
+			if (Character.isWhitespace(c)) {
+				position++;
+			} else if (c != '/' || !skipComment()) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Skips the comment at the current position, if there is one.
+	 * </p>
+	 *
+	 * @return {@code true}, if a comment got skipped
+	 */
+	private boolean skipComment() {
+		if (source.startsWith("//", position)) {
+			final int end = source.indexOf('\n', position);
+			position = end < 0 ? source.length() : end + 1;
+			return true;
+		} else if (source.startsWith("/*", position)) {
+			final int end = source.indexOf("*/", position + 2);
+			position = end < 0 ? source.length() : end + 2;
+			return true;
+		}
+		return false;
+	}
+
+	private ParseException error(final String message) {
+		return new ParseException(message + " at position " + position, position);
+	}
+}
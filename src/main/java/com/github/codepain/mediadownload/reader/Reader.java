@@ -1,23 +1,33 @@
 package com.github.codepain.mediadownload.reader;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.jsoup.Connection;
-import org.jsoup.Connection.Response;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
 
 import com.github.codepain.mediadownload.MediaDownload;
+import com.github.codepain.mediadownload.download.DownloadScheduler;
 import com.github.codepain.mediadownload.download.Downloadable;
 import com.github.codepain.mediadownload.download.DownloadedItem;
 import com.github.codepain.mediadownload.listener.Event;
 import com.github.codepain.mediadownload.listener.EventSource;
 import com.github.codepain.mediadownload.listener.EventType;
 import com.github.codepain.mediadownload.listener.Listener;
-
-import org.jsoup.Jsoup;
+import com.github.codepain.mediadownload.music.AlbumArt;
+import com.github.codepain.mediadownload.transport.HttpStatusException;
+import com.github.codepain.mediadownload.transport.Request;
+import com.github.codepain.mediadownload.transport.Response;
 
 /**
  * <p>
@@ -33,6 +43,14 @@ import org.jsoup.Jsoup;
  **/
 public abstract class Reader implements EventSource, Listener {
 
+	private static final int MAX_TRIES = 3;
+
+	private static final int BACK_OFF_MILLIS = 500;
+
+	private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+	private static final int HTTP_INTERNAL_SERVER_ERROR = 500;
+
 	private static final String[] USER_AGENTS = {
 			"Mozilla/5.0 (Windows NT 6.1; WOW64; Trident/7.0; AS; rv:11.0) like Gecko",
 			"Mozilla/5.0 (compatible, MSIE 11, Windows NT 6.3; Trident/7.0;  rv:11.0) like Gecko",
@@ -52,6 +70,8 @@ public abstract class Reader implements EventSource, Listener {
 
 	private final Random random = new Random();
 
+	private volatile DiscoveryStream discoveryStream;
+
 	/**
 	 * <p>
 	 * Constructs a {@link Reader} for the specified {@link URL}.
@@ -83,6 +103,51 @@ public abstract class Reader implements EventSource, Listener {
 		return downloadable.listener(listener);
 	}
 
+	/**
+	 * <p>
+	 * Fetches the web page and interprets it like {@link #read()}, but hands
+	 * out the {@linkplain Downloadable downloadable items} as soon as they are
+	 * discovered, so they can be downloaded while reading is still going on.
+	 * </p>
+	 * <p>
+	 * A reader must not be read again, while it is reading incrementally.
+	 * </p>
+	 * 
+	 * @return The {@link DiscoveryStream} of the items
+	 */
+	public DiscoveryStream readIncrementally() {
+		final DiscoveryStream stream = new DiscoveryStream(listener);
+		stream.start(() -> {
+			discoveryStream = stream;
+			try {
+				return fetchDownloadable();
+			} finally {
+				discoveryStream = null;
+			}
+		});
+		return stream;
+	}
+
+	/**
+	 * <p>
+	 * Announces an {@linkplain Album album} or a {@linkplain Track track} that
+	 * is completely read, while the rest of the page is still being read. If
+	 * the reader is {@linkplain #readIncrementally() reading incrementally},
+	 * the item is handed out right away; otherwise this does nothing.
+	 * </p>
+	 * 
+	 * @param downloadable
+	 *            The discovered item
+	 * @throws InterruptedIOException
+	 *             If the {@link DiscoveryStream} got closed
+	 */
+	protected void discovered(final Downloadable downloadable) throws InterruptedIOException {
+		final DiscoveryStream stream = discoveryStream;
+		if (stream != null) {
+			stream.offer(downloadable);
+		}
+	}
+
 	/**
 	 * <p>
 	 * Gets called internally by {@link #read()} to actually do the work. The
@@ -160,10 +225,93 @@ public abstract class Reader implements EventSource, Listener {
 		return this;
 	}
 
+	/**
+	 * <p>
+	 * Helper method to fetch and parse the web page of the specified
+	 * {@link URL} by the {@linkplain ReaderOptions#transport() transport}.
+	 * </p>
+	 * 
+	 * @param url
+	 *            The {@link URL} of the web page
+	 * @return The parsed {@link Document}
+	 * @throws IOException
+	 *             If fetching the web page fails
+	 */
+	protected Document fetchDocument(final URL url) throws IOException {
+		return Jsoup.parse(fetchString(new Request(url)), url.toString());
+	}
+
+	/**
+	 * <p>
+	 * Helper method to execute the specified {@linkplain Request request} by
+	 * the {@linkplain ReaderOptions#transport() transport} and return the body
+	 * of the response.
+	 * </p>
+	 * 
+	 * @param request
+	 *            The {@link Request}
+	 * @return The body of the response
+	 * @throws IOException
+	 *             If executing the request fails
+	 */
+	protected String fetchString(final Request request) throws IOException {
+		try (final Response response = options.transport().execute(request)) {
+			return response.bodyAsString();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Helper method to fetch the content of the specified {@link URL} as
+	 * UTF-8 text, trying multiple times like {@link #download(URL)}, but
+	 * without the {@linkplain ReaderOptions#cache() cache}. Meant for
+	 * resources that change, like API responses; a caching transport
+	 * revalidates them on every run.
+	 * </p>
+	 * 
+	 * @param url
+	 *            The {@link URL}
+	 * @return The content
+	 * @throws IOException
+	 *             If fetching fails after trying multiple times
+	 * @see #fetchString(URL, boolean)
+	 */
+	protected String fetchString(final URL url) throws IOException {
+		return fetchString(url, true);
+	}
+
+	/**
+	 * <p>
+	 * Helper method to fetch the content of the specified {@link URL} as
+	 * UTF-8 text like {@link #fetchString(URL)}. Responses that expire, like
+	 * API responses carrying signed stream URLs, must not be
+	 * {@linkplain Request#cacheable() cacheable} by a caching transport, as
+	 * replaying them fails once they expired.
+	 * </p>
+	 * 
+	 * @param url
+	 *            The {@link URL}
+	 * @param cacheable
+	 *            whether or not a caching transport may keep the response
+	 * @return The content
+	 * @throws IOException
+	 *             If fetching fails after trying multiple times
+	 */
+	protected String fetchString(final URL url, final boolean cacheable) throws IOException {
+		return new String(fetch(url, cacheable).data(), StandardCharsets.UTF_8);
+	}
+
 	/**
 	 * <p>
 	 * Helper method to conveniently download the content of the specified
-	 * {@link URL}.
+	 * {@link URL}. The result is kept in the {@linkplain ReaderOptions#cache()
+	 * cache}, so downloading the same URL again (like the same cover art for
+	 * every track) does not cause another request. The returned item may be
+	 * shared and must not be modified.
+	 * </p>
+	 * <p>
+	 * As cached items never expire, this is meant for static resources like
+	 * images only; use {@link #fetchString(URL)} for anything else.
 	 * </p>
 	 * 
 	 * @param url
@@ -173,43 +321,159 @@ public abstract class Reader implements EventSource, Listener {
 	 *             If the download fails after trying multiple times
 	 */
 	protected DownloadedItem download(final URL url) throws IOException {
-		int tries = 0;
-		String mimeType = null;
-		final String userAgent = USER_AGENTS[random.nextInt(USER_AGENTS.length)];
-		try (final ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
-			try {
-				final Response response = injectCommon(
-						Jsoup.connect(url.toString()).ignoreContentType(true).header("Host", url.getHost()), userAgent)
-								.execute();
+		return options.cache().get(url, cachedUrl -> fetch(cachedUrl, true));
+	}
+
+	/**
+	 * <p>
+	 * Helper method to reference the album art at the specified {@link URL},
+	 * which is {@linkplain #download(URL) downloaded} not before it is needed,
+	 * so reading does not wait for image transfers.
+	 * </p>
+	 * 
+	 * @param url
+	 *            The {@link URL} of the album art
+	 * @return The {@linkplain AlbumArt reference to the album art}
+	 */
+	protected AlbumArt albumArt(final URL url) {
+		return new AlbumArt(url, this::download);
+	}
 
-				if (mimeType == null) {
-					mimeType = response.header("Content-Type");
+	/**
+	 * <p>
+	 * Reads something of each input, e.g. the album of each URL of a
+	 * discography, concurrently on the {@linkplain ReaderOptions#scheduler()
+	 * scheduler}. The results keep the order of the inputs.
+	 * </p>
+	 * <p>
+	 * An input that cannot be read is reported as an error and results in
+	 * {@code null}, without affecting the others. The current thread takes
+	 * part in reading, so nested calls (like reading the tracks of every
+	 * album concurrently) cannot starve the scheduler.
+	 * </p>
+	 * 
+	 * @param inputs
+	 *            The inputs to read
+	 * @param task
+	 *            The {@link ReadTask} to read an input
+	 * @return The results, in the order of the inputs
+	 * @throws InterruptedIOException
+	 *             If the current thread gets interrupted while waiting
+	 */
+	protected <T, R> List<R> readConcurrently(final List<T> inputs, final ReadTask<T, R> task)
+			throws InterruptedIOException {
+		final List<CompletableFuture<R>> results = new ArrayList<>(inputs.size());
+		for (int i = 0; i < inputs.size(); i++) {
+			results.add(new CompletableFuture<>());
+		}
+
+		// each worker takes the next input, so the job never occupies more
+		// threads than the scheduler allows
+		final AtomicInteger nextIndex = new AtomicInteger();
+		final Runnable worker = () -> {
+			int index;
+			while ((index = nextIndex.getAndIncrement()) < inputs.size()) {
+				final T input = inputs.get(index);
+				try {
+					results.get(index).complete(task.read(input));
+				} catch (final IOException | RuntimeException e) {
+					trigger(EventType.ERROR, "Unable to read [" + input + "] (" + e + ")");
+					results.get(index).complete(null);
 				}
+			}
+		};
 
-				bos.write(response.bodyAsBytes());
+		final DownloadScheduler scheduler = options.scheduler();
+		for (int i = 1; i < scheduler.concurrencyOf(inputs.size()); i++) {
+			scheduler.executor().execute(worker);
+		}
+		worker.run();
+
+		// all inputs are taken now, so only those being read are waited for
+		final List<R> read = new ArrayList<>(inputs.size());
+		for (final CompletableFuture<R> result : results) {
+			try {
+				read.add(result.get());
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while reading [" + url + "]");
+			} catch (final ExecutionException e) {
+				// never completed exceptionally
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		return read;
+	}
+
+	/**
+	 * <p>
+	 * Reads something of an input, see
+	 * {@link Reader#readConcurrently(List, ReadTask)}.
+	 * </p>
+	 */
+	@FunctionalInterface
+	protected interface ReadTask<T, R> {
+
+		R read(T input) throws IOException;
+	}
+
+	private DownloadedItem fetch(final URL url, final boolean cacheable) throws IOException {
+		int tries = 0;
+		final String userAgent = USER_AGENTS[random.nextInt(USER_AGENTS.length)];
+		while (true) {
+			try (final Response response = options.transport()
+					.execute(injectCommon(new Request(url).cacheable(cacheable), userAgent))) {
+				return new DownloadedItem(response.contentType(), response.bodyAsBytes());
 			} catch (final IOException e) {
 				tries++;
-				if (tries > 3) {
-					throw e;
+				if (tries > MAX_TRIES || !isTransient(e)) {
+					throw new IOException("Error reading " + url, e);
 				}
+				backOff(tries, e, url);
 			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Tells whether trying again may help, which is the case for I/O errors,
+	 * {@code 429 Too Many Requests} and server errors, but not for other client
+	 * errors like {@code 404 Not Found}.
+	 * </p>
+	 */
+	private static boolean isTransient(final IOException e) {
+		if (e instanceof HttpStatusException) {
+			final int statusCode = ((HttpStatusException) e).statusCode();
+			return statusCode == HTTP_TOO_MANY_REQUESTS || statusCode >= HTTP_INTERNAL_SERVER_ERROR;
+		}
+		return !(e instanceof InterruptedIOException);
+	}
 
-			return new DownloadedItem(mimeType, bos.toByteArray());
-		} catch (final IOException e) {
-			throw new IOException("Error reading " + url, e);
+	/**
+	 * <p>
+	 * Waits before the next try, as long as the server asked for or else a
+	 * random time growing with the number of tries.
+	 * </p>
+	 */
+	private void backOff(final int tries, final IOException e, final URL url) throws IOException {
+		final long retryAfter = e instanceof HttpStatusException ? ((HttpStatusException) e).retryAfter() : -1;
+		try {
+			Thread.sleep(retryAfter >= 0 ? TimeUnit.SECONDS.toMillis(retryAfter)
+					: BACK_OFF_MILLIS * (1L << (tries - 1)) + random.nextInt(BACK_OFF_MILLIS));
+		} catch (final InterruptedException e1) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reading [" + url + "]");
 		}
 	}
 
-	protected Connection injectCommon(final Connection connection) {
-		return connection.header("Connection", "keep-alive").header("Pragma", "no-cache")
-				.header("Cache-Control", "no-cache").header("Accept-Encoding", "identity;q=1, *;q=0")
-				.header("User-Agent", USER_AGENTS[random.nextInt(USER_AGENTS.length)]).header("Accept", "*/*");
+	protected Request injectCommon(final Request request) {
+		return injectCommon(request, USER_AGENTS[random.nextInt(USER_AGENTS.length)]);
 	}
 
-	protected Connection injectCommon(final Connection connection, final String userAgent) {
-		return connection.header("Connection", "keep-alive").header("Pragma", "no-cache")
-				.header("Cache-Control", "no-cache").header("Accept-Encoding", "identity;q=1, *;q=0")
-				.header("User-Agent", userAgent).header("Accept", "*/*");
+	protected Request injectCommon(final Request request, final String userAgent) {
+		return request.header("Pragma", "no-cache").header("Cache-Control", "no-cache")
+				.header("Accept-Encoding", "identity;q=1, *;q=0").header("User-Agent", userAgent)
+				.header("Accept", "*/*");
 	}
 
 	@Override
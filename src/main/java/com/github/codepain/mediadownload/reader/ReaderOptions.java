@@ -1,6 +1,11 @@
 package com.github.codepain.mediadownload.reader;
 
+import java.util.Objects;
+
+import com.github.codepain.mediadownload.download.DownloadScheduler;
 import com.github.codepain.mediadownload.music.Discography;
+import com.github.codepain.mediadownload.transport.Transport;
+import com.github.codepain.mediadownload.transport.Transports;
 
 /**
  * <p>
@@ -14,6 +19,16 @@ public class ReaderOptions {
 
 	private boolean loadSamplers;
 
+	private DownloadScheduler scheduler = DownloadScheduler.shared();
+
+	private Transport transport = Transports.defaultTransport();
+
+	private DownloadCache cache = DownloadCache.shared();
+
+	private int pageSize = 10;
+
+	private int prefetchPages = 2;
+
 	/**
 	 * <p>
 	 * Sets whether or not samplers or compilations shall be read, either as
@@ -45,4 +60,165 @@ public class ReaderOptions {
 	public boolean loadSamplers() {
 		return loadSamplers;
 	}
+
+	/**
+	 * <p>
+	 * Sets the {@linkplain DownloadScheduler scheduler} on which a
+	 * {@linkplain Reader reader} runs the page fetches it does concurrently.
+	 * Defaults to the {@linkplain DownloadScheduler#shared() shared
+	 * scheduler}; use a {@linkplain DownloadScheduler#virtual(int) virtual}
+	 * one to fetch each page on its own virtual thread.
+	 * </p>
+	 * 
+	 * @param scheduler
+	 *            The {@link DownloadScheduler}
+	 * @return The modified options, allowing for chaining
+	 * @throws NullPointerException
+	 *             If the parameter is {@code null}
+	 */
+	public ReaderOptions scheduler(final DownloadScheduler scheduler) {
+		this.scheduler = Objects.requireNonNull(scheduler);
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@linkplain DownloadScheduler scheduler} for concurrent page
+	 * fetches.
+	 * </p>
+	 * 
+	 * @return
+	 */
+	public DownloadScheduler scheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * <p>
+	 * Sets the {@linkplain Transport transport} a {@linkplain Reader reader}
+	 * fetches web pages and other resources with. Defaults to the
+	 * {@linkplain Transports#defaultTransport() default transport}.
+	 * </p>
+	 * <p>
+	 * Use a {@linkplain Transports#cached(Transport, java.nio.file.Path,
+	 * java.time.Duration, long) caching transport} to keep the fetched pages
+	 * on the disk, so repeated runs mostly cause conditional requests.
+	 * </p>
+	 * 
+	 * @param transport
+	 *            The {@link Transport}
+	 * @return The modified options, allowing for chaining
+	 * @throws NullPointerException
+	 *             If the parameter is {@code null}
+	 */
+	public ReaderOptions transport(final Transport transport) {
+		this.transport = Objects.requireNonNull(transport);
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@linkplain Transport transport} for fetching web pages.
+	 * </p>
+	 * 
+	 * @return
+	 */
+	public Transport transport() {
+		return transport;
+	}
+
+	/**
+	 * <p>
+	 * Sets the {@linkplain DownloadCache cache} for the resources a
+	 * {@linkplain Reader reader} downloads while reading, like cover art.
+	 * Defaults to the {@linkplain DownloadCache#shared() shared cache}; use a
+	 * cache of size {@code 0} to disable caching.
+	 * </p>
+	 * 
+	 * @param cache
+	 *            The {@link DownloadCache}
+	 * @return The modified options, allowing for chaining
+	 * @throws NullPointerException
+	 *             If the parameter is {@code null}
+	 */
+	public ReaderOptions cache(final DownloadCache cache) {
+		this.cache = Objects.requireNonNull(cache);
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@linkplain DownloadCache cache} for downloaded resources.
+	 * </p>
+	 * 
+	 * @return
+	 */
+	public DownloadCache cache() {
+		return cache;
+	}
+
+	/**
+	 * <p>
+	 * Sets the number of items a {@linkplain Reader reader} requests per page,
+	 * if a site delivers its items in pages. Defaults to {@code 10}.
+	 * </p>
+	 * 
+	 * @param pageSize
+	 *            The number of items per page
+	 * @return The modified options, allowing for chaining
+	 * @throws IllegalArgumentException
+	 *             If the page size is less than one
+	 */
+	public ReaderOptions pageSize(final int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be at least one");
+		}
+		this.pageSize = pageSize;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of items per page.
+	 * </p>
+	 * 
+	 * @return
+	 */
+	public int pageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * <p>
+	 * Sets the number of pages a {@linkplain Reader reader} requests ahead,
+	 * while it interprets the current page. The pages are fetched on the
+	 * {@linkplain #scheduler() scheduler}. Requests beyond the last page are
+	 * wasted, so keep this small. Defaults to {@code 2}; {@code 0} fetches
+	 * one page after another.
+	 * </p>
+	 * 
+	 * @param prefetchPages
+	 *            The number of pages to request ahead
+	 * @return The modified options, allowing for chaining
+	 * @throws IllegalArgumentException
+	 *             If the number is negative
+	 */
+	public ReaderOptions prefetchPages(final int prefetchPages) {
+		if (prefetchPages < 0) {
+			throw new IllegalArgumentException("Number of pages to prefetch must not be negative");
+		}
+		this.prefetchPages = prefetchPages;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of pages to request ahead.
+	 * </p>
+	 * 
+	 * @return
+	 */
+	public int prefetchPages() {
+		return prefetchPages;
+	}
 }
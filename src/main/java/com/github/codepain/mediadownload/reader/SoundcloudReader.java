@@ -2,27 +2,26 @@ package com.github.codepain.mediadownload.reader;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-import javax.script.ScriptException;
-
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
 import com.github.codepain.mediadownload.download.Downloadable;
-import com.github.codepain.mediadownload.download.DownloadedItem;
 import com.github.codepain.mediadownload.listener.Event;
 import com.github.codepain.mediadownload.listener.EventType;
 import com.github.codepain.mediadownload.music.Album;
+import com.github.codepain.mediadownload.music.AlbumArt;
 import com.github.codepain.mediadownload.music.Discography;
 import com.github.codepain.mediadownload.music.Track;
 
@@ -40,6 +39,8 @@ public class SoundcloudReader extends Reader {
 
 	private static final String APP_VERSION = "cc53575";
 
+	private static final int TRACK_BATCH_SIZE = 50;
+
 	private final Pattern pattern = Pattern.compile("(var c=.*?\\]),o=Date.now");
 
 	/**
@@ -57,7 +58,7 @@ public class SoundcloudReader extends Reader {
 	@Override
 	public Downloadable fetchDownloadable() throws IOException {
 		trigger(EventType.READER_STATUS, "reading " + url);
-		final Document document = Jsoup.connect(url.toString()).get();
+		final Document document = fetchDocument(url);
 
 		final Elements scripts = document.select("script");
 		for (final Element script : scripts) {
@@ -75,48 +76,47 @@ public class SoundcloudReader extends Reader {
 	}
 
 	private Downloadable interpretJsCode(final String code) throws IOException {
-		final ScriptEngine engine = new ScriptEngineManager().getEngineByName("nashorn");
 		try {
-			engine.eval(code);
+			final JSONArray items = (JSONArray) JsObjectParser.parseAssignment(code, "c");
 
 			// seems to be always the last item
-			engine.eval("c = c[c.length-1].data[0];");
+			final JSONObject c = (JSONObject) ((JSONArray) ((JSONObject) items.get(items.size() - 1)).get("data"))
+					.get(0);
 			final JSONParser parser = new JSONParser();
 
 			// what kind of item do we have?
-			final String kind = (String) engine.eval("c.kind");
+			final String kind = (String) c.get("kind");
 			if ("track".equalsIgnoreCase(kind)) {
 				// track info
-				final String title = (String) engine.eval("c.title");
-				final String artist = (String) engine.eval("c.user.username");
+				final String title = (String) c.get("title");
+				final String artist = (String) ((JSONObject) c.get("user")).get("username");
 
 				// read year of release date
 				String year = null;
 				try {
-					year = ((String) engine.eval("c.release_date")).substring(0, 4);
+					year = ((String) c.get("release_date")).substring(0, 4);
 				} catch (final NullPointerException e) {
 					// then we try to use the creation date
 					try {
-						year = ((String) engine.eval("c.create_date")).substring(0, 4);
+						year = ((String) c.get("create_date")).substring(0, 4);
 					} catch (final NullPointerException e1) {
 						// nevermind, it's just the year
 					}
 				}
 
-				// album art
-				DownloadedItem albumArt = null;
+				// album art, fetched when needed
+				AlbumArt albumArt = null;
 				try {
-					final URL albumArtUrl = new URL((String) engine.eval("c.artwork_url"));
-					albumArt = download(albumArtUrl);
+					albumArt = albumArt(new URL((String) c.get("artwork_url")));
 				} catch (final NullPointerException | IOException e) {
 					// nevermind, it's just meta information
 				}
 
 				// download URL
-				final URL jsonUrl = new URL((String) engine.eval("c.uri") + "/streams?client_id=" + CLIENT_ID
+				final URL jsonUrl = new URL((String) c.get("uri") + "/streams?client_id=" + CLIENT_ID
 						+ "&app_version=" + APP_VERSION);
-				final DownloadedItem jsonDownload = download(jsonUrl);
-				final String jsonData = new String(jsonDownload.data());
+				// the stream URL is signed and expires, so never cache it
+				final String jsonData = fetchString(jsonUrl, false);
 				final JSONObject json = (JSONObject) parser.parse(jsonData);
 				final URL downloadUrl = new URL((String) json.get("http_mp3_128_url"));
 
@@ -124,14 +124,13 @@ public class SoundcloudReader extends Reader {
 			} else if ("playlist".equalsIgnoreCase(kind)) {
 
 				// fetch JSON information about that playlist
-				final URL jsonUrl = new URL("https://api.soundcloud.com/playlists/" + engine.eval("c.id")
+				final URL jsonUrl = new URL("https://api.soundcloud.com/playlists/" + c.get("id")
 						+ "?client_id=" + CLIENT_ID + "&app_version=" + APP_VERSION);
 				trigger(EventType.READER_STATUS, "fetching info of album via API [" + jsonUrl + "]");
-				final DownloadedItem jsonDownload = download(jsonUrl);
-				final String jsonData = new String(jsonDownload.data());
+				final String jsonData = fetchString(jsonUrl);
 				final JSONObject json = (JSONObject) parser.parse(jsonData);
 
-				final Album album = interpretAlbum(json, parser);
+				final Album album = interpretAlbum(json);
 				trigger(EventType.SUB_ITEMS_FOUND, album);
 				return album;
 			} else if ("user".equalsIgnoreCase(kind)) {
@@ -139,16 +138,24 @@ public class SoundcloudReader extends Reader {
 				final Discography discography = new Discography(url);
 
 				// load JSON data about the user's playlists
-				final URL jsonUrl = new URL("https://api.soundcloud.com/users/" + engine.eval("c.id")
+				final URL jsonUrl = new URL("https://api.soundcloud.com/users/" + c.get("id")
 						+ "/playlists?client_id=" + CLIENT_ID + "&app_version=" + APP_VERSION);
 				trigger(EventType.READER_STATUS, "fetching info of discography via API [" + jsonUrl + "]");
-				final DownloadedItem jsonDownload = download(jsonUrl);
-				final String jsonData = new String(jsonDownload.data());
+				final String jsonData = fetchString(jsonUrl);
 				final JSONArray playlists = (JSONArray) parser.parse(jsonData);
 
+				final List<JSONObject> albumJsons = new ArrayList<>();
 				for (final Object o : playlists) {
-					final JSONObject albumJson = (JSONObject) o;
-					final Album album = interpretAlbum(albumJson, parser);
+					albumJsons.add((JSONObject) o);
+				}
+				final List<Album> albums = readConcurrently(albumJsons, albumJson -> {
+					final Album album = interpretAlbum(albumJson);
+					if (album != null) {
+						discovered(album);
+					}
+					return album;
+				});
+				for (final Album album : albums) {
 					if (album != null) {
 						discography.add(album);
 					}
@@ -157,15 +164,16 @@ public class SoundcloudReader extends Reader {
 				trigger(EventType.SUB_ITEMS_FOUND, discography);
 				return discography;
 			}
-		} catch (final ScriptException | ParseException e) {
+		} catch (final java.text.ParseException | ParseException | ClassCastException | NullPointerException
+				| IndexOutOfBoundsException e) {
 			throw new IOException("Unable to read: " + url, e);
 		}
 
 		throw new IOException("Format of the page not known");
 	}
 
-	private Album interpretAlbum(final JSONObject json, final JSONParser parser) throws IOException, ParseException {
-		trigger(EventType.READER_STATUS, "reading album [" + url + "]");
+	private Album interpretAlbum(final JSONObject json) throws IOException {
+		trigger(EventType.READER_STATUS, "reading album [" + json.get("title") + "]");
 		// create album and add separate tracks
 		final Album album = new Album(url);
 
@@ -178,11 +186,9 @@ public class SoundcloudReader extends Reader {
 		album.title((String) json.get("title"));
 		album.artist((String) ((JSONObject) json.get("user")).get("username"));
 
-		// album art
+		// album art, fetched when needed
 		try {
-			final URL albumArt = new URL((String) json.get("artwork_url"));
-			final DownloadedItem downloadedItem = download(albumArt);
-			album.albumArt(downloadedItem);
+			album.albumArt(albumArt(new URL((String) json.get("artwork_url"))));
 		} catch (final NullPointerException | IOException e) {
 			// nevermind, it's just meta information
 		}
@@ -196,48 +202,99 @@ public class SoundcloudReader extends Reader {
 			}
 		}
 
-		// fetch the tracks
-		final JSONArray tracks = (JSONArray) json.get("tracks");
-		int index = 0;
+		// fetch the tracks, resolving their stream URLs concurrently
+		final String releaseYear = albumReleaseYear;
+		final List<JSONObject> jsonTracks = completeTracks((JSONArray) json.get("tracks"));
+		final List<Track> tracks = readConcurrently(jsonTracks,
+				jsonTrack -> interpretTrack(jsonTrack, json, releaseYear));
+		for (int i = 0; i < tracks.size(); i++) {
+			if (tracks.get(i) != null) {
+				album.add(tracks.get(i).index(i + 1));
+			}
+		}
+
+		return album;
+	}
+
+	/**
+	 * <p>
+	 * Completes the tracks of a playlist: the API returns only the first
+	 * tracks of a long playlist in full, the remaining ones just by their ID.
+	 * These are fetched in batches.
+	 * </p>
+	 */
+	private List<JSONObject> completeTracks(final JSONArray tracks) throws IOException {
+		final List<String> stubIds = new ArrayList<>();
 		for (final Object o : tracks) {
 			final JSONObject jsonTrack = (JSONObject) o;
-			index++;
+			if (jsonTrack.get("title") == null && jsonTrack.get("id") != null) {
+				stubIds.add(String.valueOf(jsonTrack.get("id")));
+			}
+		}
 
-			// data of track
-			final String title = (String) jsonTrack.get("title");
-			final String artist = (String) ((JSONObject) jsonTrack.get("user")).get("username");
-			String year = json.get("release_year") != null ? String.valueOf(json.get("release_year")) : null;
-			if (year == null) {
-				try {
-					year = ((String) jsonTrack.get("created_at")).substring(0, 4);
-				} catch (final NullPointerException e) {
-					// nevermind, it's meta data
+		final Map<String, JSONObject> completeTracks = new HashMap<>();
+		for (int i = 0; i < stubIds.size(); i += TRACK_BATCH_SIZE) {
+			final List<String> batch = stubIds.subList(i, Math.min(i + TRACK_BATCH_SIZE, stubIds.size()));
+			final URL jsonUrl = new URL("https://api.soundcloud.com/tracks?ids=" + String.join(",", batch)
+					+ "&client_id=" + CLIENT_ID + "&app_version=" + APP_VERSION);
+			trigger(EventType.READER_STATUS,
+					"fetching info of " + batch.size() + " track(s) via API [" + jsonUrl + "]");
+			try {
+				for (final Object o : (JSONArray) new JSONParser().parse(fetchString(jsonUrl))) {
+					final JSONObject jsonTrack = (JSONObject) o;
+					completeTracks.put(String.valueOf(jsonTrack.get("id")), jsonTrack);
 				}
+			} catch (final ParseException | ClassCastException e) {
+				throw new IOException("Unable to read tracks: " + jsonUrl, e);
 			}
+		}
 
-			// album art of track
-			DownloadedItem trackArt = null;
+		final List<JSONObject> jsonTracks = new ArrayList<>();
+		for (final Object o : tracks) {
+			final JSONObject jsonTrack = (JSONObject) o;
+			final JSONObject completeTrack = completeTracks.get(String.valueOf(jsonTrack.get("id")));
+			jsonTracks.add(completeTrack != null ? completeTrack : jsonTrack);
+		}
+		return jsonTracks;
+	}
+
+	private Track interpretTrack(final JSONObject jsonTrack, final JSONObject json, final String albumReleaseYear)
+			throws IOException {
+		// data of track
+		final String title = (String) jsonTrack.get("title");
+		final String artist = (String) ((JSONObject) jsonTrack.get("user")).get("username");
+		String year = json.get("release_year") != null ? String.valueOf(json.get("release_year")) : null;
+		if (year == null) {
 			try {
-				final URL albumArtUrl = new URL((String) jsonTrack.get("artwork_url"));
-				trackArt = download(albumArtUrl);
-			} catch (final NullPointerException | IOException e) {
-				// nevermind, it's just meta information
+				year = ((String) jsonTrack.get("created_at")).substring(0, 4);
+			} catch (final NullPointerException e) {
+				// nevermind, it's meta data
 			}
+		}
 
-			// download URL
-			final URL trackJsonUrl = new URL(
-					(String) jsonTrack.get("uri") + "/streams?client_id=" + CLIENT_ID + "&app_version=" + APP_VERSION);
-			final DownloadedItem trackJsonDownload = download(trackJsonUrl);
-			final String trackJsonData = new String(trackJsonDownload.data());
-			final URL downloadUrl = new URL(
-					(String) ((JSONObject) parser.parse(trackJsonData)).get("http_mp3_128_url"));
-
-			final Track track = new Track(title, downloadUrl).artist(artist).index(index)
-					.year(year == null ? albumReleaseYear : year).albumArt(trackArt);
-			album.add(track);
+		// album art of track
+		AlbumArt trackArt = null;
+		try {
+			trackArt = albumArt(new URL((String) jsonTrack.get("artwork_url")));
+		} catch (final NullPointerException | IOException e) {
+			// nevermind, it's just meta information
 		}
 
-		return album;
+		// download URL
+		final URL trackJsonUrl = new URL(
+				(String) jsonTrack.get("uri") + "/streams?client_id=" + CLIENT_ID + "&app_version=" + APP_VERSION);
+		// the stream URL is signed and expires, so never cache it
+		final String trackJsonData = fetchString(trackJsonUrl, false);
+		final URL downloadUrl;
+		try {
+			downloadUrl = new URL(
+					(String) ((JSONObject) new JSONParser().parse(trackJsonData)).get("http_mp3_128_url"));
+		} catch (final ParseException e) {
+			throw new IOException("Unable to read stream of track: " + title, e);
+		}
+
+		return new Track(title, downloadUrl).artist(artist).year(year == null ? albumReleaseYear : year)
+				.albumArt(trackArt);
 	}
 
 	@Override
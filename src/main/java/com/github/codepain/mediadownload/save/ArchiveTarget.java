@@ -0,0 +1,260 @@
+package com.github.codepain.mediadownload.save;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.Checksum;
+
+/**
+ * <p>
+ * A {@linkplain SaveTarget save target} streaming the files as entries into
+ * an archive, without writing any files to the disk.
+ * </p>
+ * <p>
+ * The entries are named by the paths the {@linkplain NamingScheme naming
+ * schemes} create, relative to the root of the archive. With a relative root
+ * of the {@linkplain SaveOptions save options}, like the empty path, these
+ * paths are used as they are:
+ * </p>
+ *
+ * <pre>
+ * try (ZipTarget zip = new ZipTarget(Files.newOutputStream(file))) {
+ * 	album.save(new SaveOptions(Paths.get("")).target(zip));
+ * }
+ * </pre>
+ * <p>
+ * Entries are written one after the other, so concurrent saves wait for each
+ * other. The archive is complete after it is {@linkplain #close() closed}.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+public abstract class ArchiveTarget implements SaveTarget, Closeable {
+
+	private final OutputStream out;
+
+	private final Path root;
+
+	private final Set<String> directories = new HashSet<>();
+
+	private boolean closed;
+
+	/**
+	 * <p>
+	 * Constructs an {@link ArchiveTarget}.
+	 * </p>
+	 *
+	 * @param out
+	 *            The {@link OutputStream} of the archive
+	 * @param root
+	 *            The path the entry names are relative to
+	 * @throws NullPointerException
+	 *             If any of the parameters is {@code null}
+	 */
+	protected ArchiveTarget(final OutputStream out, final Path root) {
+		this.out = Objects.requireNonNull(out);
+		this.root = Objects.requireNonNull(root);
+	}
+
+	@Override
+	public synchronized void createDirectories(final Path folder) throws IOException {
+		final String name = entryName(folder);
+		if (name.isEmpty()) {
+			return;
+		}
+
+		int end = name.indexOf('/');
+		while (true) {
+			final String directory = (end < 0 ? name : name.substring(0, end)) + "/";
+			if (directories.add(directory)) {
+				ensureOpen();
+				writeDirectory(directory);
+			}
+			if (end < 0) {
+				break;
+			}
+			end = name.indexOf('/', end + 1);
+		}
+	}
+
+	@Override
+	public CompletableFuture<Void> write(final Path file, final Content content) throws IOException {
+		final String name = entryName(file);
+		if (name.isEmpty()) {
+			throw new IOException("Cannot write the root of the archive as a file");
+		}
+		writeEntry(name, content);
+		return CompletableFuture.completedFuture(null);
+	}
+
+	/**
+	 * <p>
+	 * Writes a directory entry.
+	 * </p>
+	 *
+	 * @param name
+	 *            The name of the directory, ending with a slash
+	 */
+	protected abstract void writeDirectory(String name) throws IOException;
+
+	/**
+	 * <p>
+	 * Writes a file entry. Implementations have to synchronize on the target
+	 * while writing to the archive, and {@linkplain #ensureOpen() ensure} it is
+	 * still open.
+	 * </p>
+	 *
+	 * @param name
+	 *            The name of the file
+	 * @param content
+	 *            The {@link Content} of the file
+	 */
+	protected abstract void writeEntry(String name, Content content) throws IOException;
+
+	/**
+	 * <p>
+	 * Writes whatever ends the archive, but does not close the stream.
+	 * </p>
+	 */
+	protected abstract void finish() throws IOException;
+
+	@Override
+	public void albumFinished(final Path folder) {
+		// nothing to do, the entries are complete already
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+		if (!closed) {
+			out.flush();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Completes the archive and closes its stream.
+	 * </p>
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+		try {
+			finish();
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Throws an {@link IOException}, if the archive is closed already.
+	 * </p>
+	 */
+	protected void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Archive is closed");
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the name of the entry of the path, using slashes as separators.
+	 * </p>
+	 *
+	 * @throws IOException
+	 *             If the path is not within the root
+	 */
+	private String entryName(final Path path) throws IOException {
+		Path relative = path.normalize();
+		final Path normalizedRoot = root.normalize();
+		if (!normalizedRoot.equals(Paths.get(""))) {
+			if (!relative.startsWith(normalizedRoot)) {
+				throw new IOException("[" + path + "] is not within the root of the archive [" + root + "]");
+			}
+			relative = normalizedRoot.relativize(relative);
+		}
+
+		if (relative.isAbsolute() || relative.startsWith("..")) {
+			throw new IOException("[" + path + "] is not within the root of the archive [" + root + "]");
+		}
+
+		final StringBuilder name = new StringBuilder();
+		for (final Path element : relative) {
+			if (element.toString().isEmpty()) {
+				continue;
+			}
+			if (name.length() > 0) {
+				name.append('/');
+			}
+			name.append(element);
+		}
+		return name.toString();
+	}
+
+	/**
+	 * <p>
+	 * A {@link WritableByteChannel} that writes into a stream, without ever
+	 * closing it, and counts the bytes and updates a checksum on the way.
+	 * Either the stream or the checksum may be {@code null}.
+	 * </p>
+	 */
+	static class EntryChannel implements WritableByteChannel {
+
+		private final OutputStream out;
+
+		private final Checksum checksum;
+
+		private final byte[] buffer = new byte[8192];
+
+		private long count;
+
+		EntryChannel(final OutputStream out, final Checksum checksum) {
+			this.out = out;
+			this.checksum = checksum;
+		}
+
+		@Override
+		public int write(final ByteBuffer src) throws IOException {
+			final int length = src.remaining();
+			while (src.hasRemaining()) {
+				final int n = Math.min(buffer.length, src.remaining());
+				src.get(buffer, 0, n);
+				if (checksum != null) {
+					checksum.update(buffer, 0, n);
+				}
+				if (out != null) {
+					out.write(buffer, 0, n);
+				}
+			}
+			count += length;
+			return length;
+		}
+
+		long count() {
+			return count;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+			// nevermind, the stream stays open for the next entry
+		}
+	}
+}
@@ -0,0 +1,266 @@
+package com.github.codepain.mediadownload.save;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>
+ * A {@linkplain SaveTarget save target} writing the files into the file
+ * system.
+ * </p>
+ * <p>
+ * By default, the files are written directly. A durable target instead
+ * writes each file to a temporary file in the same folder first, forces it
+ * to the disk as the {@link SyncPolicy} says and renames it atomically then,
+ * so a crash never leaves a half-written file that looks complete. Forcing
+ * the files of a whole album or batch together saves waiting for the disk
+ * after every single file; the files appear under their names not before
+ * they are forced to the disk, though. The {@linkplain #write(Path, Content)
+ * futures} of the files tell when that happens.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+public class FileSystemTarget implements SaveTarget {
+
+	private static final int DEFAULT_BATCH_SIZE = 32;
+
+	private static final String TEMP_SUFFIX = ".part";
+
+	private final SyncPolicy syncPolicy;
+
+	private final int batchSize;
+
+	private final List<PendingFile> pending = new ArrayList<>();
+
+	/**
+	 * <p>
+	 * Constructs a {@link FileSystemTarget} writing the files directly.
+	 * </p>
+	 */
+	public FileSystemTarget() {
+		this.syncPolicy = null;
+		this.batchSize = 0;
+	}
+
+	/**
+	 * <p>
+	 * Constructs a durable {@link FileSystemTarget}. The
+	 * {@linkplain SyncPolicy#BATCHED batches} take 32 files.
+	 * </p>
+	 *
+	 * @param syncPolicy
+	 *            The {@link SyncPolicy}
+	 * @throws NullPointerException
+	 *             If the policy is {@code null}
+	 */
+	public FileSystemTarget(final SyncPolicy syncPolicy) {
+		this(syncPolicy, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * <p>
+	 * Constructs a durable {@link FileSystemTarget}.
+	 * </p>
+	 *
+	 * @param syncPolicy
+	 *            The {@link SyncPolicy}
+	 * @param batchSize
+	 *            The number of files forced to the disk together, if the
+	 *            policy is {@link SyncPolicy#BATCHED}
+	 * @throws NullPointerException
+	 *             If the policy is {@code null}
+	 * @throws IllegalArgumentException
+	 *             If the batch size is less than one
+	 */
+	public FileSystemTarget(final SyncPolicy syncPolicy, final int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least one");
+		}
+		this.syncPolicy = Objects.requireNonNull(syncPolicy);
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public void createDirectories(final Path folder) throws IOException {
+		Files.createDirectories(folder);
+	}
+
+	@Override
+	public CompletableFuture<Void> write(final Path file, final Content content) throws IOException {
+		if (syncPolicy == null) {
+			try (final FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				content.writeTo(out);
+			}
+			return CompletableFuture.completedFuture(null);
+		}
+
+		final Path tempFile = file.resolveSibling(
+				"." + file.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + TEMP_SUFFIX);
+		try (final FileChannel out = FileChannel.open(tempFile, StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE)) {
+			content.writeTo(out);
+			if (syncPolicy == SyncPolicy.PER_FILE) {
+				out.force(true);
+			}
+		} catch (final IOException | RuntimeException e) {
+			Files.deleteIfExists(tempFile);
+			throw e;
+		}
+
+		final PendingFile pendingFile = new PendingFile(tempFile, file);
+		switch (syncPolicy) {
+		case NONE:
+			pendingFile.rename();
+			return CompletableFuture.completedFuture(null);
+		case PER_FILE:
+			pendingFile.rename();
+			force(file.getParent());
+			return CompletableFuture.completedFuture(null);
+		default:
+			List<PendingFile> batch = null;
+			synchronized (pending) {
+				pending.add(pendingFile);
+				if (syncPolicy == SyncPolicy.BATCHED && pending.size() >= batchSize) {
+					batch = drainPending(null);
+				}
+			}
+			if (batch != null) {
+				commit(batch);
+			}
+			return pendingFile.committed;
+		}
+	}
+
+	@Override
+	public void albumFinished(final Path folder) throws IOException {
+		if (syncPolicy == SyncPolicy.PER_ALBUM) {
+			final List<PendingFile> batch;
+			synchronized (pending) {
+				batch = drainPending(folder);
+			}
+			commit(batch);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		final List<PendingFile> batch;
+		synchronized (pending) {
+			batch = drainPending(null);
+		}
+		commit(batch);
+	}
+
+	/**
+	 * <p>
+	 * Takes the pending files within the folder, or all of them if the folder
+	 * is {@code null}.
+	 * </p>
+	 */
+	private List<PendingFile> drainPending(final Path folder) {
+		final List<PendingFile> batch = new ArrayList<>();
+		for (final Iterator<PendingFile> it = pending.iterator(); it.hasNext();) {
+			final PendingFile pendingFile = it.next();
+			if (folder == null || pendingFile.file.startsWith(folder)) {
+				batch.add(pendingFile);
+				it.remove();
+			}
+		}
+		return batch;
+	}
+
+	/**
+	 * <p>
+	 * Forces the files to the disk, renames them and forces their folders
+	 * then, so the new names are durable as well. A file that fails is
+	 * deleted, the others are committed anyway.
+	 * </p>
+	 */
+	private static void commit(final List<PendingFile> batch) throws IOException {
+		IOException failure = null;
+		final Set<Path> folders = new LinkedHashSet<>();
+		for (final PendingFile pendingFile : batch) {
+			try {
+				force(pendingFile.tempFile);
+				pendingFile.rename();
+				folders.add(pendingFile.file.getParent());
+			} catch (final IOException e) {
+				Files.deleteIfExists(pendingFile.tempFile);
+				pendingFile.committed.completeExceptionally(e);
+				if (failure == null) {
+					failure = e;
+				} else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+
+		for (final Path folder : folders) {
+			force(folder);
+		}
+		for (final PendingFile pendingFile : batch) {
+			// completes only the renamed ones, the others failed already
+			pendingFile.committed.complete(null);
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private static void force(final Path path) throws IOException {
+		if (path == null) {
+			return;
+		}
+
+		if (Files.isDirectory(path)) {
+			try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				channel.force(true);
+			} catch (final IOException e) {
+				// nevermind, not every platform can force folders to the disk
+			}
+		} else {
+			try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+				channel.force(true);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * A file written to its temporary file, waiting to be renamed.
+	 * </p>
+	 */
+	private static class PendingFile {
+
+		private final Path tempFile;
+
+		private final Path file;
+
+		private final CompletableFuture<Void> committed = new CompletableFuture<>();
+
+		PendingFile(final Path tempFile, final Path file) {
+			this.tempFile = tempFile;
+			this.file = file;
+		}
+
+		void rename() throws IOException {
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+}
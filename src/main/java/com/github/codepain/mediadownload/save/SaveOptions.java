@@ -3,6 +3,7 @@ package com.github.codepain.mediadownload.save;
 import java.nio.file.Path;
 import java.util.Objects;
 
+import com.github.codepain.mediadownload.download.DownloadOptions;
 import com.github.codepain.mediadownload.music.Album;
 import com.github.codepain.mediadownload.music.LooseTrackSet;
 import com.github.codepain.mediadownload.music.Track;
@@ -13,6 +14,16 @@ public class SaveOptions {
 
 	private boolean saveCoverArtSeparately;
 
+	private boolean embedCoverArt = true;
+
+	private boolean pipelined;
+
+	private DownloadOptions downloadOptions = new DownloadOptions();
+
+	private SaveScheduler saveScheduler = SaveScheduler.shared();
+
+	private SaveTarget target = new FileSystemTarget();
+
 	private NamingScheme<Album> albumNamingScheme = new DefaultAlbumNamingScheme();
 
 	private NamingScheme<Track> trackNamingScheme = new DefaultTrackNamingScheme();
@@ -36,7 +47,11 @@ public class SaveOptions {
 	}
 
 	public SaveOptions copyWithRoot(final Path root) {
-		final SaveOptions options = new SaveOptions(root).saveCoverArtSeparately(saveCoverArtSeparately);
+		final SaveOptions options = new SaveOptions(root).saveCoverArtSeparately(saveCoverArtSeparately)
+				.embedCoverArt(embedCoverArt).pipelined(pipelined)
+				.downloadOptions(downloadOptions).saveScheduler(saveScheduler).target(target)
+				.albumNamingScheme(albumNamingScheme).trackNamingScheme(trackNamingScheme)
+				.looseTrackSetNamingScheme(looseTrackSetNamingScheme);
 		return options;
 	}
 
@@ -53,6 +68,51 @@ public class SaveOptions {
 		return saveCoverArtSeparately;
 	}
 
+	public SaveOptions embedCoverArt(final boolean embedCoverArt) {
+		this.embedCoverArt = embedCoverArt;
+		return this;
+	}
+
+	public boolean embedCoverArt() {
+		return embedCoverArt;
+	}
+
+	public SaveOptions pipelined(final boolean pipelined) {
+		this.pipelined = pipelined;
+		return this;
+	}
+
+	public boolean pipelined() {
+		return pipelined;
+	}
+
+	public SaveOptions downloadOptions(final DownloadOptions downloadOptions) {
+		this.downloadOptions = Objects.requireNonNull(downloadOptions);
+		return this;
+	}
+
+	public DownloadOptions downloadOptions() {
+		return downloadOptions;
+	}
+
+	public SaveOptions saveScheduler(final SaveScheduler saveScheduler) {
+		this.saveScheduler = Objects.requireNonNull(saveScheduler);
+		return this;
+	}
+
+	public SaveScheduler saveScheduler() {
+		return saveScheduler;
+	}
+
+	public SaveOptions target(final SaveTarget target) {
+		this.target = Objects.requireNonNull(target);
+		return this;
+	}
+
+	public SaveTarget target() {
+		return target;
+	}
+
 	public SaveOptions looseTrackSetNamingScheme(final NamingScheme<LooseTrackSet> looseTrackSetNamingScheme) {
 		this.looseTrackSetNamingScheme = Objects.requireNonNull(looseTrackSetNamingScheme);
 		return this;
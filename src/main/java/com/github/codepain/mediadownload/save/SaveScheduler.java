@@ -0,0 +1,215 @@
+package com.github.codepain.mediadownload.save;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Executes the saving of all downloaded items that use it, apart from the
+ * threads of the {@linkplain com.github.codepain.mediadownload.download.DownloadScheduler
+ * downloads}.
+ * </p>
+ * <p>
+ * Saving an item takes two stages, which run on separately sized thread
+ * pools:
+ * <ul>
+ * <li>Tagging, i.e. reading the downloaded data and building the meta
+ * information, which is bound by the CPU.</li>
+ * <li>Writing the file, which is bound by the disk.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * The number of items within the stages is limited. Submitting an item
+ * blocks while the stages are full, so if the disk cannot keep up, the
+ * threads of the downloads wait instead of piling up downloaded data in the
+ * heap. All threads are daemon threads.
+ * </p>
+ * <p>
+ * Use {@link #shared()} for the process-wide default, or inject an own
+ * instance by {@link SaveOptions#saveScheduler(SaveScheduler)}.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+public class SaveScheduler {
+
+	private static final int DEFAULT_DISK_CONCURRENCY = 2;
+
+	private static final int DEFAULT_CAPACITY = 8;
+
+	private static final AtomicInteger schedulerCount = new AtomicInteger();
+
+	private static final SaveScheduler SHARED = new SaveScheduler(Runtime.getRuntime().availableProcessors(),
+			DEFAULT_DISK_CONCURRENCY, DEFAULT_CAPACITY);
+
+	private final ExecutorService taggingExecutor;
+
+	private final ExecutorService diskExecutor;
+
+	private final Semaphore permits;
+
+	/**
+	 * <p>
+	 * Tags a downloaded item, i.e. the first stage of saving it.
+	 * </p>
+	 */
+	@FunctionalInterface
+	public interface Tagging<T> {
+
+		T tag() throws IOException;
+	}
+
+	/**
+	 * <p>
+	 * Writes a tagged item, i.e. the second stage of saving it.
+	 * </p>
+	 */
+	@FunctionalInterface
+	public interface Writing<T> {
+
+		void write(T tagged) throws IOException;
+	}
+
+	/**
+	 * <p>
+	 * Constructs a {@link SaveScheduler} with the specified limits.
+	 * </p>
+	 *
+	 * @param taggingConcurrency
+	 *            The number of items that may be tagged at the same time
+	 * @param diskConcurrency
+	 *            The number of files that may be written at the same time
+	 * @param capacity
+	 *            The maximum number of items within the stages, i.e. being
+	 *            tagged, written or waiting for either
+	 * @throws IllegalArgumentException
+	 *             If any of the limits is less than one
+	 */
+	public SaveScheduler(final int taggingConcurrency, final int diskConcurrency, final int capacity) {
+		if (taggingConcurrency < 1 || diskConcurrency < 1 || capacity < 1) {
+			throw new IllegalArgumentException("Save limits must be at least one");
+		}
+		final String name = "media-save-" + schedulerCount.incrementAndGet();
+		taggingExecutor = Executors.newFixedThreadPool(taggingConcurrency, threadFactory(name + "-tagging"));
+		diskExecutor = Executors.newFixedThreadPool(diskConcurrency, threadFactory(name + "-disk"));
+		permits = new Semaphore(capacity);
+	}
+
+	/**
+	 * <p>
+	 * Returns the process-wide {@link SaveScheduler}, which tags as many items
+	 * at the same time as there are processors, writes two files at the same
+	 * time and holds up to eight items.
+	 * </p>
+	 *
+	 * @return The shared {@link SaveScheduler}
+	 */
+	public static SaveScheduler shared() {
+		return SHARED;
+	}
+
+	/**
+	 * <p>
+	 * Saves an item by tagging it and writing it then, waiting while the
+	 * stages are full.
+	 * </p>
+	 *
+	 * @param tagging
+	 *            The first stage
+	 * @param writing
+	 *            The second stage, which gets the result of the first one
+	 * @return The {@link CompletableFuture} of the result of the first stage,
+	 *         which completes after the second one; it completes
+	 *         exceptionally, if any of the stages failed
+	 */
+	public <T> CompletableFuture<T> submit(final Tagging<T> tagging, final Writing<T> writing) {
+		final CompletableFuture<T> save = new CompletableFuture<>();
+		try {
+			permits.acquire();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			save.completeExceptionally(new InterruptedIOException("Interrupted while waiting to save"));
+			return save;
+		}
+
+		try {
+			CompletableFuture.supplyAsync(() -> {
+				try {
+					return tagging.tag();
+				} catch (final IOException e) {
+					throw new CompletionException(e);
+				}
+			}, taggingExecutor).thenApplyAsync(tagged -> {
+				try {
+					writing.write(tagged);
+					return tagged;
+				} catch (final IOException e) {
+					throw new CompletionException(e);
+				}
+			}, diskExecutor).whenComplete((tagged, e) -> {
+				permits.release();
+				if (e != null) {
+					save.completeExceptionally(e instanceof CompletionException && e.getCause() != null
+							? e.getCause() : e);
+				} else {
+					save.complete(tagged);
+				}
+			});
+		} catch (final RejectedExecutionException e) {
+			permits.release();
+			save.completeExceptionally(e);
+		}
+		return save;
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@link Executor} for tagging.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public Executor taggingExecutor() {
+		return taggingExecutor;
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@link Executor} for writing files.
+	 * </p>
+	 *
+	 * @return
+	 */
+	public Executor diskExecutor() {
+		return diskExecutor;
+	}
+
+	/**
+	 * <p>
+	 * Stops accepting new items. Items being saved are finished.
+	 * </p>
+	 */
+	public void shutdown() {
+		taggingExecutor.shutdown();
+		diskExecutor.shutdown();
+	}
+
+	private static ThreadFactory threadFactory(final String name) {
+		final AtomicInteger threadCount = new AtomicInteger();
+		return runnable -> {
+			final Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
@@ -0,0 +1,133 @@
+package com.github.codepain.mediadownload.save;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>
+ * Where saved items go. The paths are the ones the
+ * {@linkplain NamingScheme naming schemes} of the {@linkplain SaveOptions save
+ * options} create; how and when the files appear under these paths is up to
+ * the target.
+ * </p>
+ * <p>
+ * A target may be used by several threads at the same time.
+ * </p>
+ *
+ * @author codepain
+ * @see FileSystemTarget
+ */
+public interface SaveTarget {
+
+	/**
+	 * <p>
+	 * The content of a file, which may be written more than once.
+	 * </p>
+	 */
+	interface Content {
+
+		/**
+		 * <p>
+		 * Returns the number of bytes written by {@link #writeTo(WritableByteChannel)}.
+		 * </p>
+		 */
+		long size() throws IOException;
+
+		/**
+		 * <p>
+		 * Writes the content to the channel.
+		 * </p>
+		 */
+		void writeTo(WritableByteChannel channel) throws IOException;
+
+		/**
+		 * <p>
+		 * Returns the {@link Content} of the bytes.
+		 * </p>
+		 *
+		 * @param bytes
+		 *            The bytes
+		 * @return The {@link Content}
+		 * @throws NullPointerException
+		 *             If the bytes are {@code null}
+		 */
+		static Content of(final byte[] bytes) {
+			Objects.requireNonNull(bytes);
+			return new Content() {
+
+				@Override
+				public long size() {
+					return bytes.length;
+				}
+
+				@Override
+				public void writeTo(final WritableByteChannel channel) throws IOException {
+					final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+					while (buffer.hasRemaining()) {
+						channel.write(buffer);
+					}
+				}
+			};
+		}
+	}
+
+	/**
+	 * <p>
+	 * Creates the folder, including its parents.
+	 * </p>
+	 *
+	 * @param folder
+	 *            The folder
+	 * @throws IOException
+	 *             If the folder cannot be created
+	 */
+	void createDirectories(Path folder) throws IOException;
+
+	/**
+	 * <p>
+	 * Writes the file, replacing it if it exists. A target may complete the
+	 * file later on, e.g. after the whole album is written, so the file is
+	 * not necessarily present under its path when this method returns.
+	 * </p>
+	 *
+	 * @param file
+	 *            The file
+	 * @param content
+	 *            The {@link Content} of the file
+	 * @return A {@link CompletableFuture} that completes once the file is
+	 *         complete under its path, or completes exceptionally if that
+	 *         fails
+	 * @throws IOException
+	 *             If the file cannot be written
+	 */
+	CompletableFuture<Void> write(Path file, Content content) throws IOException;
+
+	/**
+	 * <p>
+	 * Gets called after all files of an album (or of any other set of tracks)
+	 * are written. Albums may be saved at the same time, so only the files
+	 * within the folder of the album are meant.
+	 * </p>
+	 *
+	 * @param folder
+	 *            The folder of the album
+	 * @throws IOException
+	 *             If the files cannot be completed
+	 */
+	void albumFinished(Path folder) throws IOException;
+
+	/**
+	 * <p>
+	 * Completes all files written so far. Gets called at the end of every
+	 * save.
+	 * </p>
+	 *
+	 * @throws IOException
+	 *             If the files cannot be completed
+	 */
+	void flush() throws IOException;
+}
@@ -0,0 +1,39 @@
+package com.github.codepain.mediadownload.save;
+
+/**
+ * <p>
+ * When a {@linkplain FileSystemTarget#FileSystemTarget(SyncPolicy) durable
+ * file system target} forces written files to the disk, before they get
+ * renamed to their final names.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+public enum SyncPolicy {
+
+	/**
+	 * Files are renamed right after writing, without forcing them to the disk.
+	 * A crash leaves no half-written files behind, but the content of the
+	 * latest files may not have reached the disk yet.
+	 */
+	NONE,
+
+	/**
+	 * Every file is forced to the disk and renamed right after writing.
+	 */
+	PER_FILE,
+
+	/**
+	 * The files of an album are forced to the disk and renamed together, after
+	 * the whole album is written.
+	 */
+	PER_ALBUM,
+
+	/**
+	 * Files are forced to the disk and renamed in batches of a
+	 * {@linkplain FileSystemTarget#FileSystemTarget(SyncPolicy, int) fixed
+	 * number} of files.
+	 */
+	BATCHED
+}
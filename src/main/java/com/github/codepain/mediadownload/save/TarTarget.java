@@ -0,0 +1,242 @@
+package com.github.codepain.mediadownload.save;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * <p>
+ * An {@linkplain ArchiveTarget archive target} writing an uncompressed TAR
+ * archive in the POSIX (ustar) format.
+ * </p>
+ * <p>
+ * The size of an entry has to be known before its content, so it is taken
+ * from the {@linkplain SaveTarget.Content content}. Names that do not fit
+ * into the header, as well as sizes of 8 GiB and more, are written as PAX
+ * extended headers.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+public class TarTarget extends ArchiveTarget {
+
+	private static final int BLOCK_SIZE = 512;
+
+	private static final int NAME_LENGTH = 100;
+
+	private static final int PREFIX_LENGTH = 155;
+
+	/**
+	 * The largest size that fits into the 11 octal digits of the header
+	 */
+	private static final long MAX_SIZE = 077777777777L;
+
+	private static final byte TYPE_FILE = '0';
+
+	private static final byte TYPE_DIRECTORY = '5';
+
+	private static final byte TYPE_PAX_HEADER = 'x';
+
+	private final OutputStream out;
+
+	/**
+	 * <p>
+	 * Constructs a {@link TarTarget} naming the entries by the paths of the
+	 * files as they are, which therefore have to be relative.
+	 * </p>
+	 *
+	 * @param out
+	 *            The {@link OutputStream} of the archive
+	 * @throws NullPointerException
+	 *             If the stream is {@code null}
+	 */
+	public TarTarget(final OutputStream out) {
+		this(out, Paths.get(""));
+	}
+
+	/**
+	 * <p>
+	 * Constructs a {@link TarTarget} naming the entries by the paths of the
+	 * files relative to the root.
+	 * </p>
+	 *
+	 * @param out
+	 *            The {@link OutputStream} of the archive
+	 * @param root
+	 *            The path the entry names are relative to, usually the root
+	 *            of the {@linkplain SaveOptions save options}
+	 * @throws NullPointerException
+	 *             If any of the parameters is {@code null}
+	 */
+	public TarTarget(final OutputStream out, final Path root) {
+		super(out, root);
+		this.out = out;
+	}
+
+	@Override
+	protected void writeDirectory(final String name) throws IOException {
+		writeHeader(name, 0, TYPE_DIRECTORY);
+	}
+
+	@Override
+	protected void writeEntry(final String name, final Content content) throws IOException {
+		final long size = content.size();
+		synchronized (this) {
+			ensureOpen();
+			writeHeader(name, size, TYPE_FILE);
+			final EntryChannel channel = new EntryChannel(out, null);
+			content.writeTo(channel);
+			if (channel.count() != size) {
+				// the header is written already, the archive is broken
+				throw new IOException("Entry [" + name + "] has " + channel.count() + " bytes instead of " + size);
+			}
+			pad(size);
+		}
+	}
+
+	@Override
+	protected void finish() throws IOException {
+		// the end of the archive is marked by two empty blocks
+		out.write(new byte[2 * BLOCK_SIZE]);
+	}
+
+	/**
+	 * <p>
+	 * Writes the header of an entry, preceded by a PAX extended header, if
+	 * the name or the size does not fit into it.
+	 * </p>
+	 */
+	private void writeHeader(final String name, final long size, final byte type) throws IOException {
+		final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		String headerName = name;
+		String prefix = "";
+		final StringBuilder paxRecords = new StringBuilder();
+		if (nameBytes.length > NAME_LENGTH) {
+			final int split = splitPosition(name);
+			if (split < 0) {
+				paxRecords.append(paxRecord("path", name));
+				headerName = truncate(name, NAME_LENGTH);
+			} else {
+				prefix = name.substring(0, split);
+				headerName = name.substring(split + 1);
+			}
+		}
+		if (size > MAX_SIZE) {
+			paxRecords.append(paxRecord("size", Long.toString(size)));
+		}
+
+		if (paxRecords.length() > 0) {
+			final byte[] records = paxRecords.toString().getBytes(StandardCharsets.UTF_8);
+			out.write(header("PaxHeaders/" + truncate(headerName, NAME_LENGTH - 11), "", records.length,
+					TYPE_PAX_HEADER));
+			out.write(records);
+			pad(records.length);
+		}
+		out.write(header(headerName, prefix, size > MAX_SIZE ? 0 : size, type));
+	}
+
+	/**
+	 * <p>
+	 * Returns the position of the slash to split the name at into prefix and
+	 * name, or {@code -1} if there is none that makes both fit.
+	 * </p>
+	 */
+	private static int splitPosition(final String name) {
+		for (int i = name.indexOf('/'); i >= 0; i = name.indexOf('/', i + 1)) {
+			final int prefixLength = name.substring(0, i).getBytes(StandardCharsets.UTF_8).length;
+			final int nameLength = name.substring(i + 1).getBytes(StandardCharsets.UTF_8).length;
+			if (prefixLength > PREFIX_LENGTH) {
+				break;
+			}
+			if (nameLength <= NAME_LENGTH && nameLength > 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static byte[] header(final String name, final String prefix, final long size, final byte type) {
+		final byte[] header = new byte[BLOCK_SIZE];
+		put(header, 0, NAME_LENGTH, name.getBytes(StandardCharsets.UTF_8));
+		putOctal(header, 100, 8, type == TYPE_DIRECTORY ? 0755 : 0644);
+		putOctal(header, 108, 8, 0);
+		putOctal(header, 116, 8, 0);
+		putOctal(header, 124, 12, size);
+		putOctal(header, 136, 12, System.currentTimeMillis() / 1000);
+		header[156] = type;
+		put(header, 257, 6, "ustar\0".getBytes(StandardCharsets.US_ASCII));
+		put(header, 263, 2, "00".getBytes(StandardCharsets.US_ASCII));
+		put(header, 345, PREFIX_LENGTH, prefix.getBytes(StandardCharsets.UTF_8));
+
+		// the checksum is computed with the checksum field being spaces
+		for (int i = 148; i < 156; i++) {
+			header[i] = ' ';
+		}
+		long checksum = 0;
+		for (final byte b : header) {
+			checksum += b & 0xff;
+		}
+		putOctal(header, 148, 7, checksum);
+		return header;
+	}
+
+	private static void put(final byte[] header, final int offset, final int length, final byte[] value) {
+		System.arraycopy(value, 0, header, offset, Math.min(length, value.length));
+	}
+
+	/**
+	 * <p>
+	 * Puts the value as octal number, padded by zeros and terminated by a null
+	 * character.
+	 * </p>
+	 */
+	private static void putOctal(final byte[] header, final int offset, final int length, final long value) {
+		final String octal = Long.toOctalString(value);
+		final StringBuilder sb = new StringBuilder();
+		for (int i = octal.length(); i < length - 1; i++) {
+			sb.append('0');
+		}
+		sb.append(octal);
+		put(header, offset, length - 1, sb.toString().getBytes(StandardCharsets.US_ASCII));
+		header[offset + length - 1] = 0;
+	}
+
+	/**
+	 * <p>
+	 * Returns a PAX record, which starts with its own length in bytes.
+	 * </p>
+	 */
+	private static String paxRecord(final String key, final String value) {
+		final int length = (" " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8).length;
+		int total = length + Integer.toString(length).length();
+		if (Integer.toString(total).length() != Integer.toString(length).length()) {
+			// the length got one digit longer by adding itself
+			total++;
+		}
+		return total + " " + key + "=" + value + "\n";
+	}
+
+	/**
+	 * <p>
+	 * Truncates the string to the number of bytes, without splitting a
+	 * character.
+	 * </p>
+	 */
+	private static String truncate(final String value, final int maxBytes) {
+		String truncated = value;
+		while (truncated.getBytes(StandardCharsets.UTF_8).length > maxBytes) {
+			truncated = truncated.substring(0, truncated.length() - 1);
+		}
+		return truncated;
+	}
+
+	private void pad(final long size) throws IOException {
+		final int remainder = (int) (size % BLOCK_SIZE);
+		if (remainder > 0) {
+			out.write(new byte[BLOCK_SIZE - remainder]);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.github.codepain.mediadownload.save;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * <p>
+ * An {@linkplain ArchiveTarget archive target} writing a ZIP archive.
+ * </p>
+ * <p>
+ * As MP3 files and images hardly compress, the entries are stored instead of
+ * deflated. Their CRC is computed by writing the content once to nowhere
+ * before writing it into the archive, so the entries need no data
+ * descriptors.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+public class ZipTarget extends ArchiveTarget {
+
+	private final ZipOutputStream zip;
+
+	/**
+	 * <p>
+	 * Constructs a {@link ZipTarget} naming the entries by the paths of the
+	 * files as they are, which therefore have to be relative.
+	 * </p>
+	 *
+	 * @param out
+	 *            The {@link OutputStream} of the archive
+	 * @throws NullPointerException
+	 *             If the stream is {@code null}
+	 */
+	public ZipTarget(final OutputStream out) {
+		this(out, Paths.get(""));
+	}
+
+	/**
+	 * <p>
+	 * Constructs a {@link ZipTarget} naming the entries by the paths of the
+	 * files relative to the root.
+	 * </p>
+	 *
+	 * @param out
+	 *            The {@link OutputStream} of the archive
+	 * @param root
+	 *            The path the entry names are relative to, usually the root
+	 *            of the {@linkplain SaveOptions save options}
+	 * @throws NullPointerException
+	 *             If any of the parameters is {@code null}
+	 */
+	public ZipTarget(final OutputStream out, final Path root) {
+		this(new ZipOutputStream(out), root);
+	}
+
+	private ZipTarget(final ZipOutputStream zip, final Path root) {
+		super(zip, root);
+		this.zip = zip;
+		zip.setMethod(ZipOutputStream.STORED);
+	}
+
+	@Override
+	protected void writeDirectory(final String name) throws IOException {
+		final ZipEntry entry = new ZipEntry(name);
+		entry.setSize(0);
+		entry.setCompressedSize(0);
+		entry.setCrc(0);
+		zip.putNextEntry(entry);
+		zip.closeEntry();
+	}
+
+	@Override
+	protected void writeEntry(final String name, final Content content) throws IOException {
+		final CRC32 crc = new CRC32();
+		final EntryChannel checksumChannel = new EntryChannel(null, crc);
+		content.writeTo(checksumChannel);
+
+		final ZipEntry entry = new ZipEntry(name);
+		entry.setSize(checksumChannel.count());
+		entry.setCompressedSize(checksumChannel.count());
+		entry.setCrc(crc.getValue());
+		synchronized (this) {
+			ensureOpen();
+			zip.putNextEntry(entry);
+			content.writeTo(new EntryChannel(zip, null));
+			zip.closeEntry();
+		}
+	}
+
+	@Override
+	protected void finish() throws IOException {
+		zip.finish();
+	}
+}
@@ -0,0 +1,393 @@
+package com.github.codepain.mediadownload.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * <p>
+ * A {@linkplain Transport transport} that keeps the responses to
+ * {@code GET} requests in a folder on the disk, so they survive a restart of
+ * the JVM.
+ * </p>
+ * <p>
+ * A cached response is served without any request as long as it is younger
+ * than the time to live. Afterwards it is revalidated by a conditional
+ * request ({@code If-None-Match} or {@code If-Modified-Since}); if the server
+ * answers {@code 304 Not Modified}, the cached body is served again and its
+ * time to live starts over. When the folder grows beyond its maximum size,
+ * the least recently validated responses are evicted, until a tenth of
+ * the maximum size is free. The sizes of the responses are kept in memory,
+ * so the folder is only walked once it seems to be too large.
+ * </p>
+ * <p>
+ * Each response is stored in a single file, which gets replaced atomically.
+ * Requests with a {@code Range} header or not {@linkplain Request#cacheable()
+ * cacheable}, responses with {@code Cache-Control: no-store} or
+ * {@code private}, and responses without a validator and without a time to
+ * live are passed through.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+class CachingTransport implements Transport {
+
+	private static final int HTTP_OK = 200;
+
+	private static final int HTTP_NOT_MODIFIED = 304;
+
+	private static final String SUFFIX = ".cache";
+
+	private final Transport transport;
+
+	private final Path folder;
+
+	private final long timeToLive;
+
+	private final long maxBytes;
+
+	/**
+	 * The cached files with their sizes, the least recently validated first;
+	 * loaded from the folder on the first write
+	 */
+	private Map<Path, Long> index;
+
+	/**
+	 * The total size of the files in the index
+	 */
+	private long size;
+
+	/**
+	 * <p>
+	 * Constructs a {@link CachingTransport}.
+	 * </p>
+	 *
+	 * @param transport
+	 *            The {@link Transport} executing the requests
+	 * @param folder
+	 *            The folder of the cache
+	 * @param timeToLive
+	 *            The time in milliseconds a response is served without
+	 *            revalidating it
+	 * @param maxBytes
+	 *            The maximum total size of the cached responses
+	 */
+	CachingTransport(final Transport transport, final Path folder, final long timeToLive, final long maxBytes) {
+		this.transport = transport;
+		this.folder = folder;
+		this.timeToLive = timeToLive;
+		this.maxBytes = maxBytes;
+	}
+
+	@Override
+	public Response execute(final Request request) throws IOException {
+		if (!"GET".equalsIgnoreCase(request.method()) || request.header("Range") != null || !request.cacheable()) {
+			return transport.execute(request);
+		}
+
+		final Path file = folder.resolve(hash(request.url().toString()) + SUFFIX);
+		final CachedResponse cached = read(file, request);
+		Request actualRequest = request;
+		if (cached != null) {
+			final long age = System.currentTimeMillis() - lastModified(file);
+			if (age < timeToLive) {
+				return cached;
+			}
+
+			// the request of the caller stays as it is
+			if (cached.header("ETag") != null) {
+				actualRequest = request.copy().header("If-None-Match", cached.header("ETag"));
+			} else if (cached.header("Last-Modified") != null) {
+				actualRequest = request.copy().header("If-Modified-Since", cached.header("Last-Modified"));
+			}
+		}
+
+		try (final Response response = transport.execute(actualRequest)) {
+			if (cached != null && response.statusCode() == HTTP_NOT_MODIFIED) {
+				touch(file);
+				return cached;
+			}
+
+			final Properties headers = new Properties();
+			copyHeader(response, headers, "Content-Type");
+			copyHeader(response, headers, "ETag");
+			copyHeader(response, headers, "Last-Modified");
+			final CachedResponse fresh = new CachedResponse(response.statusCode(), headers, response.bodyAsBytes());
+			if (response.statusCode() == HTTP_OK && storable(response) && (timeToLive > 0
+					|| fresh.header("ETag") != null || fresh.header("Last-Modified") != null)) {
+				write(file, request, fresh);
+			}
+			return fresh;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Tells whether the server allows to keep the response, i.e. it is neither
+	 * {@code no-store} nor {@code private}.
+	 * </p>
+	 */
+	private static boolean storable(final Response response) {
+		final String cacheControl = response.header("Cache-Control");
+		if (cacheControl == null) {
+			return true;
+		}
+		for (final String directive : cacheControl.split(",")) {
+			final String name = directive.trim().toLowerCase();
+			if (name.equals("no-store") || name.startsWith("private")) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void copyHeader(final Response response, final Properties headers, final String name) {
+		final String value = response.header(name);
+		if (value != null) {
+			headers.setProperty(name, value);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Reads the cached response of the request.
+	 * </p>
+	 *
+	 * @return The {@link CachedResponse}, or {@code null} if there is none
+	 */
+	private static CachedResponse read(final Path file, final Request request) {
+		try (final DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+			final byte[] meta = new byte[in.readInt()];
+			in.readFully(meta);
+			final Properties headers = new Properties();
+			headers.load(new ByteArrayInputStream(meta));
+			if (!request.url().toString().equals(headers.getProperty("url"))) {
+				return null;
+			}
+
+			final ByteArrayOutputStream body = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[8192];
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				body.write(buffer, 0, n);
+			}
+			return new CachedResponse(HTTP_OK, headers, body.toByteArray());
+		} catch (final NoSuchFileException e) {
+			return null;
+		} catch (final IOException | RuntimeException e) {
+			// corrupt, fetch it again
+			return null;
+		}
+	}
+
+	private void write(final Path file, final Request request, final CachedResponse response) throws IOException {
+		Files.createDirectories(folder);
+		final Properties headers = new Properties();
+		headers.putAll(response.headers);
+		headers.setProperty("url", request.url().toString());
+		final ByteArrayOutputStream meta = new ByteArrayOutputStream();
+		headers.store(meta, null);
+
+		final Path tmpFile = Files.createTempFile(folder, "response-", ".tmp");
+		try {
+			try (final DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmpFile))) {
+				out.writeInt(meta.size());
+				meta.writeTo(out);
+				out.write(response.body);
+			}
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmpFile);
+		}
+
+		written(file);
+	}
+
+	private void touch(final Path file) {
+		try {
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (final IOException e) {
+			// nevermind, it just gets revalidated again next time
+			return;
+		}
+
+		synchronized (this) {
+			if (index != null) {
+				// validated just now, so it moves to the end
+				final Long fileSize = index.remove(file);
+				if (fileSize != null) {
+					index.put(file, fileSize);
+				}
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Records the written file in the index and evicts responses, if the cache
+	 * got too large.
+	 * </p>
+	 */
+	private synchronized void written(final Path file) throws IOException {
+		if (index == null) {
+			load();
+		}
+
+		final Long formerSize = index.remove(file);
+		if (formerSize != null) {
+			size -= formerSize;
+		}
+		final long fileSize = size(file);
+		index.put(file, fileSize);
+		size += fileSize;
+
+		if (size > maxBytes) {
+			// other processes may share the folder, so be sure it is really too large
+			load();
+			evict();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Loads the index from the folder, the least recently validated responses
+	 * first.
+	 * </p>
+	 */
+	private void load() throws IOException {
+		final List<Path> files = new ArrayList<>();
+		try (final DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "*" + SUFFIX)) {
+			for (final Path file : stream) {
+				files.add(file);
+			}
+		}
+		files.sort(Comparator.comparingLong(CachingTransport::lastModified));
+
+		index = new LinkedHashMap<>();
+		size = 0;
+		for (final Path file : files) {
+			final long fileSize = size(file);
+			index.put(file, fileSize);
+			size += fileSize;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Deletes the least recently validated responses, until a tenth of the
+	 * maximum size is free, so not every following write walks the folder
+	 * again.
+	 * </p>
+	 */
+	private void evict() throws IOException {
+		final long targetBytes = maxBytes - maxBytes / 10;
+		for (final Iterator<Map.Entry<Path, Long>> it = index.entrySet().iterator(); it.hasNext()
+				&& size > targetBytes;) {
+			final Map.Entry<Path, Long> entry = it.next();
+			Files.deleteIfExists(entry.getKey());
+			it.remove();
+			size -= entry.getValue();
+		}
+	}
+
+	private static long size(final Path file) {
+		try {
+			return Files.size(file);
+		} catch (final IOException e) {
+			// deleted meanwhile
+			return 0;
+		}
+	}
+
+	private static long lastModified(final Path file) {
+		try {
+			return Files.getLastModifiedTime(file).toMillis();
+		} catch (final IOException e) {
+			return 0;
+		}
+	}
+
+	private static String hash(final String value) {
+		try {
+			final byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+			final StringBuilder sb = new StringBuilder();
+			for (final byte b : digest) {
+				sb.append(String.format("%02x", b));
+			}
+			return sb.toString();
+		} catch (final NoSuchAlgorithmException e) {
+			// every JVM has to support SHA-1
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * A {@link Response} held in memory.
+	 * </p>
+	 */
+	private static class CachedResponse implements Response {
+
+		private final int statusCode;
+
+		private final Properties headers;
+
+		private final byte[] body;
+
+		CachedResponse(final int statusCode, final Properties headers, final byte[] body) {
+			this.statusCode = statusCode;
+			this.headers = headers;
+			this.body = body;
+		}
+
+		@Override
+		public int statusCode() {
+			return statusCode;
+		}
+
+		@Override
+		public String header(final String name) {
+			for (final String key : headers.stringPropertyNames()) {
+				if (key.equalsIgnoreCase(name)) {
+					return headers.getProperty(key);
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public InputStream body() {
+			return new ByteArrayInputStream(body);
+		}
+
+		@Override
+		public byte[] bodyAsBytes() {
+			return body;
+		}
+
+		@Override
+		public void close() {
+			// nothing to do, it's all in memory
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package com.github.codepain.mediadownload.transport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Limits the requests to a single host, both in rate and in concurrent
+ * connections.
+ * </p>
+ * <p>
+ * The limits adapt to the behavior of the host: they are halved when the host
+ * answers with {@code 429 Too Many Requests} or {@code 503 Service
+ * Unavailable}, or when its latency rises well above the best latency seen so
+ * far. While the host answers quickly, they grow again step by step, up to the
+ * configured maximum. A {@code Retry-After} of the host is respected by not
+ * sending any request before that time.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+final class HostLimiter {
+
+	private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+	private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+
+	private static final double MIN_RATE = 0.5;
+
+	/**
+	 * A latency this many times the baseline counts as congestion
+	 */
+	private static final double LATENCY_FACTOR = 3;
+
+	/**
+	 * Weight of a new sample in the smoothed latency
+	 */
+	private static final double LATENCY_WEIGHT = 0.2;
+
+	/**
+	 * Weight of the smoothed latency when the baseline follows it upwards, so
+	 * a host that got slower for good is not regarded as congested forever
+	 */
+	private static final double BASELINE_DRIFT = 0.01;
+
+	/**
+	 * The limits are decreased at most once within this time, as the
+	 * responses of the requests in flight still reflect the old limits
+	 */
+	private static final long DECREASE_COOLDOWN = TimeUnit.SECONDS.toNanos(1);
+
+	private final double maxRate;
+
+	private final int maxConcurrency;
+
+	private double rate;
+
+	private double tokens;
+
+	private long lastRefill = System.nanoTime();
+
+	private double concurrency;
+
+	private int inFlight;
+
+	private long blockedUntil;
+
+	private double latency;
+
+	private double baseline;
+
+	private long lastDecrease;
+
+	/**
+	 * <p>
+	 * Constructs a {@link HostLimiter}, which starts at the maximum limits.
+	 * </p>
+	 *
+	 * @param maxRate
+	 *            The maximum number of requests per second
+	 * @param maxConcurrency
+	 *            The maximum number of concurrent connections
+	 */
+	HostLimiter(final double maxRate, final int maxConcurrency) {
+		this.maxRate = maxRate;
+		this.maxConcurrency = maxConcurrency;
+		rate = maxRate;
+		tokens = 1;
+		concurrency = maxConcurrency;
+		blockedUntil = lastRefill;
+		lastDecrease = lastRefill - DECREASE_COOLDOWN;
+	}
+
+	/**
+	 * <p>
+	 * Waits until a request may be sent, and takes a connection. The caller
+	 * has to {@linkplain #release() give it back}.
+	 * </p>
+	 *
+	 * @throws InterruptedException
+	 *             If interrupted while waiting
+	 */
+	synchronized void acquire() throws InterruptedException {
+		while (true) {
+			final long now = System.nanoTime();
+			refill(now);
+
+			final long waitTime;
+			if (now - blockedUntil < 0) {
+				waitTime = blockedUntil - now;
+			} else if (inFlight >= (int) concurrency) {
+				// wait for a release
+				waitTime = 0;
+			} else if (tokens < 1) {
+				waitTime = Math.max(1, (long) ((1 - tokens) / rate * TimeUnit.SECONDS.toNanos(1)));
+			} else {
+				tokens--;
+				inFlight++;
+				return;
+			}
+
+			if (waitTime == 0) {
+				wait();
+			} else {
+				TimeUnit.NANOSECONDS.timedWait(this, waitTime);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Gives back a connection taken by {@link #acquire()}.
+	 * </p>
+	 */
+	synchronized void release() {
+		inFlight--;
+		notifyAll();
+	}
+
+	/**
+	 * <p>
+	 * Adapts the limits to a response of the host.
+	 * </p>
+	 *
+	 * @param statusCode
+	 *            The HTTP status code of the response
+	 * @param latency
+	 *            The time until the response arrived, in nanoseconds
+	 * @param retryAfter
+	 *            The number of seconds the host asked to wait, {@code -1} if
+	 *            it did not
+	 */
+	synchronized void onResponse(final int statusCode, final long latency, final long retryAfter) {
+		final long now = System.nanoTime();
+		if (statusCode == HTTP_TOO_MANY_REQUESTS || statusCode == HTTP_SERVICE_UNAVAILABLE) {
+			decrease(now);
+			if (retryAfter > 0) {
+				final long until = now + TimeUnit.SECONDS.toNanos(retryAfter);
+				if (until - blockedUntil > 0) {
+					blockedUntil = until;
+				}
+			}
+		} else if (statusCode < HTTP_TOO_MANY_REQUESTS) {
+			this.latency = this.latency == 0 ? latency
+					: (1 - LATENCY_WEIGHT) * this.latency + LATENCY_WEIGHT * latency;
+			baseline = baseline == 0 ? this.latency
+					: Math.min(this.latency, baseline + BASELINE_DRIFT * (this.latency - baseline));
+
+			if (this.latency > LATENCY_FACTOR * baseline) {
+				decrease(now);
+			} else {
+				increase();
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the current limit of requests per second.
+	 * </p>
+	 *
+	 * @return
+	 */
+	synchronized double rate() {
+		return rate;
+	}
+
+	/**
+	 * <p>
+	 * Returns the current limit of concurrent connections.
+	 * </p>
+	 *
+	 * @return
+	 */
+	synchronized int concurrency() {
+		return (int) concurrency;
+	}
+
+	private void refill(final long now) {
+		tokens = Math.min(Math.max(1, rate), tokens + (now - lastRefill) * rate / TimeUnit.SECONDS.toNanos(1));
+		lastRefill = now;
+	}
+
+	private void increase() {
+		rate = Math.min(maxRate, rate + 1 / rate);
+		concurrency = Math.min(maxConcurrency, concurrency + 1 / concurrency);
+		notifyAll();
+	}
+
+	private void decrease(final long now) {
+		if (now - lastDecrease < DECREASE_COOLDOWN) {
+			return;
+		}
+		lastDecrease = now;
+		rate = Math.max(Math.min(MIN_RATE, maxRate), rate / 2);
+		concurrency = Math.max(1, concurrency / 2);
+		// the smoothed latency starts over, so a single slow phase does not
+		// keep decreasing the limits
+		latency = 0;
+	}
+}
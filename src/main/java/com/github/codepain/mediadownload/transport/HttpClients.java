@@ -0,0 +1,32 @@
+package com.github.codepain.mediadownload.transport;
+
+import java.time.Duration;
+
+/**
+ * <p>
+ * Access to the {@linkplain Transport transport} based on
+ * {@code java.net.http.HttpClient}.
+ * </p>
+ * <p>
+ * This is the implementation for older Java versions, which does not support
+ * it. The multi-release JAR contains an implementation for Java 21 that
+ * replaces this one.
+ * </p>
+ * 
+ * @author codepain
+ *
+ */
+final class HttpClients {
+
+	private HttpClients() {
+	}
+
+	static boolean available() {
+		return false;
+	}
+
+	static Transport newTransport(final int threads, final int maxConnections, final Duration connectTimeout,
+			final Duration requestTimeout) {
+		throw new UnsupportedOperationException("The HttpClient transport requires Java 21 or later");
+	}
+}
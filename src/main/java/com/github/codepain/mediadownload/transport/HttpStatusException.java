@@ -0,0 +1,100 @@
+package com.github.codepain.mediadownload.transport;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * <p>
+ * Signals that a server answered a {@linkplain Request request} with an error
+ * status, i.e. {@code 400} or above.
+ * </p>
+ * 
+ * @author codepain
+ *
+ */
+public class HttpStatusException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int statusCode;
+
+	private final URL url;
+
+	private final long retryAfter;
+
+	/**
+	 * <p>
+	 * Constructs a {@link HttpStatusException}.
+	 * </p>
+	 * 
+	 * @param statusCode
+	 *            The HTTP status code
+	 * @param url
+	 *            The requested {@link URL}
+	 */
+	public HttpStatusException(final int statusCode, final URL url) {
+		this(statusCode, url, -1);
+	}
+
+	/**
+	 * <p>
+	 * Constructs a {@link HttpStatusException} for a server, which told us
+	 * when to try again.
+	 * </p>
+	 * 
+	 * @param statusCode
+	 *            The HTTP status code
+	 * @param url
+	 *            The requested {@link URL}
+	 * @param retryAfter
+	 *            The number of seconds to wait before trying again, {@code -1}
+	 *            if unknown
+	 */
+	public HttpStatusException(final int statusCode, final URL url, final long retryAfter) {
+		super("HTTP error " + statusCode + " fetching " + url);
+		this.statusCode = statusCode;
+		this.url = url;
+		this.retryAfter = retryAfter;
+	}
+
+	public int statusCode() {
+		return statusCode;
+	}
+
+	public URL url() {
+		return url;
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of seconds the server asked to wait by a
+	 * {@code Retry-After} header, or {@code -1} if it did not.
+	 * </p>
+	 * 
+	 * @return
+	 */
+	public long retryAfter() {
+		return retryAfter;
+	}
+
+	/**
+	 * <p>
+	 * Parses the value of a {@code Retry-After} header. Only the number of
+	 * seconds is supported, not the HTTP date.
+	 * </p>
+	 * 
+	 * @param header
+	 *            The value of the header, may be {@code null}
+	 * @return The number of seconds, or {@code -1} if unknown
+	 */
+	static long parseRetryAfter(final String header) {
+		if (header != null) {
+			try {
+				return Math.max(0, Long.parseLong(header.trim()));
+			} catch (final NumberFormatException e) {
+				// nevermind, an HTTP date is not worth the effort
+			}
+		}
+		return -1;
+	}
+}
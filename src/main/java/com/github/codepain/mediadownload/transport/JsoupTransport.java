@@ -0,0 +1,104 @@
+package com.github.codepain.mediadownload.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.jsoup.Connection;
+import org.jsoup.Connection.Method;
+import org.jsoup.Jsoup;
+
+/**
+ * <p>
+ * A {@linkplain Transport transport} using the HTTP client of Jsoup, which is
+ * blocking and does not pool connections beyond what
+ * {@link java.net.HttpURLConnection} does.
+ * </p>
+ * 
+ * @author codepain
+ *
+ */
+class JsoupTransport implements Transport {
+
+	private static final int HTTP_BAD_REQUEST = 400;
+
+	private final int timeoutMillis;
+
+	/**
+	 * <p>
+	 * Constructs a {@link JsoupTransport}.
+	 * </p>
+	 * 
+	 * @param timeoutMillis
+	 *            The connect and read timeout in milliseconds
+	 */
+	JsoupTransport(final int timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	@Override
+	public Response execute(final Request request) throws IOException {
+		final Connection connection = Jsoup.connect(request.url().toString()).ignoreContentType(true)
+				.ignoreHttpErrors(true).maxBodySize(0).timeout(timeoutMillis)
+				.method(Method.valueOf(request.method().toUpperCase()));
+		for (final Map.Entry<String, String> header : request.headers().entrySet()) {
+			connection.header(header.getKey(), header.getValue());
+		}
+		if (!request.data().isEmpty()) {
+			connection.data(request.data());
+		}
+
+		final Connection.Response response = connection.execute();
+		final JsoupResponse result = new JsoupResponse(response);
+		if (response.statusCode() >= HTTP_BAD_REQUEST) {
+			result.close();
+			throw new HttpStatusException(response.statusCode(), request.url(),
+					HttpStatusException.parseRetryAfter(response.header("Retry-After")));
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Wraps the {@linkplain Connection.Response response} of Jsoup.
+	 * </p>
+	 */
+	private static class JsoupResponse implements Response {
+
+		private final Connection.Response response;
+
+		private InputStream body;
+
+		JsoupResponse(final Connection.Response response) {
+			this.response = response;
+		}
+
+		@Override
+		public int statusCode() {
+			return response.statusCode();
+		}
+
+		@Override
+		public String header(final String name) {
+			return response.header(name);
+		}
+
+		@Override
+		public InputStream body() {
+			if (body == null) {
+				// Jsoup hands out a closed stream, if there is no body at all
+				body = "0".equals(response.header("Content-Length")) ? new ByteArrayInputStream(new byte[0])
+						: response.bodyStream();
+			}
+			return body;
+		}
+
+		@Override
+		public void close() throws IOException {
+			// closing the stream disconnects
+			body().close();
+		}
+	}
+}
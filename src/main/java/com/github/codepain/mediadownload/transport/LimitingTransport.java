@@ -0,0 +1,133 @@
+package com.github.codepain.mediadownload.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * A {@linkplain Transport transport} that passes the requests on to another
+ * one, keeping each host within adaptive limits of request rate and concurrent
+ * connections (see {@link HostLimiter}).
+ * </p>
+ * <p>
+ * A connection counts as in use until the {@linkplain Response response} is
+ * closed, so a long-running download occupies it for the whole transfer.
+ * </p>
+ * 
+ * @author codepain
+ *
+ */
+class LimitingTransport implements Transport {
+
+	private final Transport transport;
+
+	private final double maxRate;
+
+	private final int maxConcurrency;
+
+	private final ConcurrentMap<String, HostLimiter> limiters = new ConcurrentHashMap<>();
+
+	/**
+	 * <p>
+	 * Constructs a {@link LimitingTransport}.
+	 * </p>
+	 * 
+	 * @param transport
+	 *            The {@link Transport} executing the requests
+	 * @param maxRate
+	 *            The maximum number of requests per second and host
+	 * @param maxConcurrency
+	 *            The maximum number of concurrent connections per host
+	 */
+	LimitingTransport(final Transport transport, final double maxRate, final int maxConcurrency) {
+		this.transport = transport;
+		this.maxRate = maxRate;
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	@Override
+	public Response execute(final Request request) throws IOException {
+		final HostLimiter limiter = limiter(request);
+		try {
+			limiter.acquire();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for " + request.url().getHost());
+		}
+
+		final long start = System.nanoTime();
+		try {
+			final Response response = transport.execute(request);
+			limiter.onResponse(response.statusCode(), System.nanoTime() - start, -1);
+			return new LimitedResponse(response, limiter);
+		} catch (final HttpStatusException e) {
+			limiter.onResponse(e.statusCode(), System.nanoTime() - start, e.retryAfter());
+			limiter.release();
+			throw e;
+		} catch (final IOException | RuntimeException e) {
+			limiter.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the {@link HostLimiter} of the host of the request.
+	 * </p>
+	 */
+	HostLimiter limiter(final Request request) {
+		return limiters.computeIfAbsent(request.url().getHost().toLowerCase(Locale.ROOT),
+				host -> new HostLimiter(maxRate, maxConcurrency));
+	}
+
+	/**
+	 * <p>
+	 * Gives the connection back to the {@link HostLimiter} once the response
+	 * is closed.
+	 * </p>
+	 */
+	private static class LimitedResponse implements Response {
+
+		private final Response response;
+
+		private final HostLimiter limiter;
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		LimitedResponse(final Response response, final HostLimiter limiter) {
+			this.response = response;
+			this.limiter = limiter;
+		}
+
+		@Override
+		public int statusCode() {
+			return response.statusCode();
+		}
+
+		@Override
+		public String header(final String name) {
+			return response.header(name);
+		}
+
+		@Override
+		public InputStream body() throws IOException {
+			return response.body();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				response.close();
+			} finally {
+				if (released.compareAndSet(false, true)) {
+					limiter.release();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package com.github.codepain.mediadownload.transport;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>
+ * A HTTP request to be executed by a {@linkplain Transport transport}.
+ * </p>
+ * 
+ * @author codepain
+ *
+ */
+public class Request {
+
+	private final URL url;
+
+	private String method = "GET";
+
+	private final Map<String, String> headers = new LinkedHashMap<>();
+
+	private final Map<String, String> data = new LinkedHashMap<>();
+
+	private boolean cacheable = true;
+
+	/**
+	 * <p>
+	 * Constructs a {@code GET} request for the specified {@link URL}.
+	 * </p>
+	 * 
+	 * @param url
+	 *            The {@link URL} to request
+	 * @throws NullPointerException
+	 *             If the URL is {@code null}
+	 */
+	public Request(final URL url) {
+		this.url = Objects.requireNonNull(url);
+	}
+
+	/**
+	 * <p>
+	 * Sets the HTTP method, i.e. {@code GET} or {@code POST}.
+	 * </p>
+	 * 
+	 * @param method
+	 *            The HTTP method
+	 * @return The modified request, allowing for chaining
+	 * @throws NullPointerException
+	 *             If the method is {@code null}
+	 */
+	public Request method(final String method) {
+		this.method = Objects.requireNonNull(method);
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Sets a header, replacing any former value.
+	 * </p>
+	 * 
+	 * @param name
+	 *            The name of the header
+	 * @param value
+	 *            The value of the header
+	 * @return The modified request, allowing for chaining
+	 */
+	public Request header(final String name, final String value) {
+		headers.put(name, value);
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Adds a form parameter, which is sent as the body of a {@code POST}
+	 * request.
+	 * </p>
+	 * 
+	 * @param key
+	 *            The key of the parameter
+	 * @param value
+	 *            The value of the parameter
+	 * @return The modified request, allowing for chaining
+	 */
+	public Request data(final String key, final String value) {
+		data.put(key, value);
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Adds all form parameters of the map.
+	 * </p>
+	 * 
+	 * @param data
+	 *            The form parameters
+	 * @return The modified request, allowing for chaining
+	 * @see #data(String, String)
+	 */
+	public Request data(final Map<String, String> data) {
+		this.data.putAll(data);
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Sets whether or not the response may be kept by a
+	 * {@linkplain Transports#cached(Transport, java.nio.file.Path,
+	 * java.time.Duration, long) caching transport}. Requests for resources
+	 * that expire, like API responses carrying signed URLs, must not be
+	 * cached. Defaults to {@code true}.
+	 * </p>
+	 * 
+	 * @param cacheable
+	 *            whether or not the response may be cached
+	 * @return The modified request, allowing for chaining
+	 */
+	public Request cacheable(final boolean cacheable) {
+		this.cacheable = cacheable;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * Returns whether or not the response may be cached. For a more detailed
+	 * explanation see {@link #cacheable(boolean)}.
+	 * </p>
+	 * 
+	 * @return
+	 */
+	public boolean cacheable() {
+		return cacheable;
+	}
+
+	/**
+	 * <p>
+	 * Returns a copy of this request, which can be modified without affecting
+	 * this one.
+	 * </p>
+	 * 
+	 * @return The copy
+	 */
+	public Request copy() {
+		final Request copy = new Request(url).method(method).data(data).cacheable(cacheable);
+		copy.headers.putAll(headers);
+		return copy;
+	}
+
+	public URL url() {
+		return url;
+	}
+
+	public String method() {
+		return method;
+	}
+
+	/**
+	 * <p>
+	 * Returns the value of the header, or {@code null} if it is not set.
+	 * </p>
+	 * 
+	 * @param name
+	 *            The name of the header
+	 * @return
+	 */
+	public String header(final String name) {
+		return headers.get(name);
+	}
+
+	public Map<String, String> headers() {
+		return Collections.unmodifiableMap(headers);
+	}
+
+	public Map<String, String> data() {
+		return Collections.unmodifiableMap(data);
+	}
+
+	@Override
+	public String toString() {
+		return method + " " + url;
+	}
+}
@@ -0,0 +1,113 @@
+package com.github.codepain.mediadownload.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * The response to a {@linkplain Request request}, which was executed by a
+ * {@linkplain Transport transport}.
+ * </p>
+ * <p>
+ * The body is not read until asked for, so it can be streamed. A response has
+ * to be {@linkplain #close() closed} to release the connection.
+ * </p>
+ * 
+ * @author codepain
+ *
+ */
+public interface Response extends Closeable {
+
+	/**
+	 * <p>
+	 * Returns the HTTP status code.
+	 * </p>
+	 * 
+	 * @return
+	 */
+	int statusCode();
+
+	/**
+	 * <p>
+	 * Returns the value of the header, or {@code null} if there is none.
+	 * </p>
+	 * 
+	 * @param name
+	 *            The name of the header, case-insensitive
+	 * @return
+	 */
+	String header(String name);
+
+	/**
+	 * <p>
+	 * Returns the {@code Content-Type} header.
+	 * </p>
+	 * 
+	 * @return
+	 */
+	default String contentType() {
+		return header("Content-Type");
+	}
+
+	/**
+	 * <p>
+	 * Returns the body as a stream. It can only be read once.
+	 * </p>
+	 * 
+	 * @return The {@link InputStream} of the body
+	 * @throws IOException
+	 *             If the body cannot be read
+	 */
+	InputStream body() throws IOException;
+
+	/**
+	 * <p>
+	 * Reads the whole body into memory.
+	 * </p>
+	 * 
+	 * @return The body
+	 * @throws IOException
+	 *             If the body cannot be read
+	 */
+	default byte[] bodyAsBytes() throws IOException {
+		try (final InputStream in = body(); final ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
+			final byte[] buffer = new byte[8192];
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				bos.write(buffer, 0, n);
+			}
+			return bos.toByteArray();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Reads the whole body into a string, using the charset of the
+	 * {@linkplain #contentType() content type} or UTF-8.
+	 * </p>
+	 * 
+	 * @return The body
+	 * @throws IOException
+	 *             If the body cannot be read
+	 */
+	default String bodyAsString() throws IOException {
+		Charset charset = StandardCharsets.UTF_8;
+		if (contentType() != null) {
+			final Matcher matcher = Pattern.compile("(?i)charset=\"?([^\\s;\"]+)").matcher(contentType());
+			if (matcher.find()) {
+				try {
+					charset = Charset.forName(matcher.group(1));
+				} catch (final IllegalArgumentException e) {
+					// nevermind, stick to UTF-8
+				}
+			}
+		}
+		return new String(bodyAsBytes(), charset);
+	}
+}
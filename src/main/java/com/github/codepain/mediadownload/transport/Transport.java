@@ -0,0 +1,61 @@
+package com.github.codepain.mediadownload.transport;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>
+ * Moves the bytes of HTTP {@linkplain Request requests} and
+ * {@linkplain Response responses}, i.e. it is the HTTP client used by readers
+ * and downloads. Parsing web pages is not its business.
+ * </p>
+ * <p>
+ * Obtain an implementation by {@link Transports}.
+ * </p>
+ * 
+ * @author codepain
+ *
+ */
+public interface Transport {
+
+	/**
+	 * <p>
+	 * Executes the request and returns as soon as the headers of the response
+	 * are available. The body can be streamed afterwards.
+	 * </p>
+	 * 
+	 * @param request
+	 *            The {@link Request}
+	 * @return The {@link Response}, which has to be closed
+	 * @throws HttpStatusException
+	 *             If the server answers with an error status
+	 * @throws IOException
+	 *             If executing the request fails
+	 */
+	Response execute(Request request) throws IOException;
+
+	/**
+	 * <p>
+	 * Executes the request asynchronously. The default implementation runs
+	 * {@link #execute(Request)} on the executor, implementations based on
+	 * non-blocking I/O do better.
+	 * </p>
+	 * 
+	 * @param request
+	 *            The {@link Request}
+	 * @param executor
+	 *            The {@link Executor} to use for blocking work
+	 * @return A {@link CompletableFuture} of the {@link Response}
+	 */
+	default CompletableFuture<Response> executeAsync(final Request request, final Executor executor) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return execute(request);
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, executor);
+	}
+}
@@ -0,0 +1,203 @@
+package com.github.codepain.mediadownload.transport;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Creates the available {@linkplain Transport transports}.
+ * </p>
+ * 
+ * @author codepain
+ *
+ */
+public final class Transports {
+
+	private static final int DEFAULT_TIMEOUT_MILLIS = 30000;
+
+	private static final double DEFAULT_MAX_RATE = 8;
+
+	private static final int DEFAULT_MAX_CONNECTIONS = 6;
+
+	private static final Transport DEFAULT = limited(new JsoupTransport(DEFAULT_TIMEOUT_MILLIS));
+
+	private Transports() {
+	}
+
+	/**
+	 * <p>
+	 * Returns the default {@linkplain Transport transport}, which is used
+	 * unless another one is configured. It is based on Jsoup and
+	 * {@linkplain #limited(Transport) limited per host}; as there is only one
+	 * instance, all readers and downloads using it share the limits.
+	 * </p>
+	 * 
+	 * @return The default {@link Transport}
+	 */
+	public static Transport defaultTransport() {
+		return DEFAULT;
+	}
+
+	/**
+	 * <p>
+	 * Creates a blocking {@linkplain Transport transport} based on the HTTP
+	 * client of Jsoup.
+	 * </p>
+	 * 
+	 * @param timeout
+	 *            The connect and read timeout
+	 * @return The {@link Transport}
+	 * @throws NullPointerException
+	 *             If the timeout is {@code null}
+	 */
+	public static Transport jsoup(final Duration timeout) {
+		return new JsoupTransport((int) Objects.requireNonNull(timeout).toMillis());
+	}
+
+	/**
+	 * <p>
+	 * Returns whether or not the {@linkplain #httpClient(int, int, Duration, Duration)
+	 * transport based on {@code java.net.http.HttpClient}} is available, i.e.
+	 * whether this runs on Java 21 or later.
+	 * </p>
+	 * 
+	 * @return
+	 */
+	public static boolean httpClientAvailable() {
+		return HttpClients.available();
+	}
+
+	/**
+	 * <p>
+	 * Creates a {@linkplain Transport transport} based on
+	 * {@code java.net.http.HttpClient}, which uses non-blocking I/O, pools its
+	 * connections, and speaks HTTP/2 where the server supports it.
+	 * {@linkplain Transport#executeAsync(Request, java.util.concurrent.Executor)
+	 * Asynchronous requests} do not block any thread while waiting for the
+	 * response.
+	 * </p>
+	 * 
+	 * @param threads
+	 *            The number of threads handling the I/O of the client
+	 * @param maxConnections
+	 *            The maximum number of requests in flight at the same time,
+	 *            which bounds the number of pooled connections
+	 * @param connectTimeout
+	 *            The timeout for establishing a connection
+	 * @param requestTimeout
+	 *            The timeout until the headers of a response arrive
+	 * @return The {@link Transport}
+	 * @throws IllegalArgumentException
+	 *             If the number of threads or connections is less than one
+	 * @throws NullPointerException
+	 *             If any timeout is {@code null}
+	 * @throws UnsupportedOperationException
+	 *             If the transport is not {@linkplain #httpClientAvailable()
+	 *             available}
+	 */
+	public static Transport httpClient(final int threads, final int maxConnections, final Duration connectTimeout,
+			final Duration requestTimeout) {
+		if (threads < 1 || maxConnections < 1) {
+			throw new IllegalArgumentException("Number of threads and connections must be at least one");
+		}
+		return HttpClients.newTransport(threads, maxConnections, Objects.requireNonNull(connectTimeout),
+				Objects.requireNonNull(requestTimeout));
+	}
+
+	/**
+	 * <p>
+	 * Wraps the {@linkplain Transport transport}, so each host gets at most
+	 * eight requests per second over at most six concurrent connections.
+	 * </p>
+	 * 
+	 * @param transport
+	 *            The {@link Transport} executing the requests
+	 * @return The limited {@link Transport}
+	 * @throws NullPointerException
+	 *             If the transport is {@code null}
+	 * @see #limited(Transport, double, int)
+	 */
+	public static Transport limited(final Transport transport) {
+		return limited(transport, DEFAULT_MAX_RATE, DEFAULT_MAX_CONNECTIONS);
+	}
+
+	/**
+	 * <p>
+	 * Wraps the {@linkplain Transport transport}, so the requests to each host
+	 * stay within the specified limits of request rate and concurrent
+	 * connections. A connection is in use until its {@linkplain Response
+	 * response} is closed.
+	 * </p>
+	 * <p>
+	 * The limits are maximums: they get halved whenever a host answers with
+	 * {@code 429 Too Many Requests} or {@code 503 Service Unavailable} or its
+	 * latency rises notably, and grow back step by step while it answers
+	 * quickly. A {@code Retry-After} given in seconds pauses all requests to
+	 * the host.
+	 * </p>
+	 * 
+	 * @param transport
+	 *            The {@link Transport} executing the requests
+	 * @param maxRequestsPerSecond
+	 *            The maximum number of requests per second and host
+	 * @param maxConnectionsPerHost
+	 *            The maximum number of concurrent connections per host
+	 * @return The limited {@link Transport}
+	 * @throws IllegalArgumentException
+	 *             If any of the limits is not positive
+	 * @throws NullPointerException
+	 *             If the transport is {@code null}
+	 */
+	public static Transport limited(final Transport transport, final double maxRequestsPerSecond,
+			final int maxConnectionsPerHost) {
+		if (!(maxRequestsPerSecond > 0) || maxConnectionsPerHost < 1) {
+			throw new IllegalArgumentException("Limits must be positive");
+		}
+		return new LimitingTransport(Objects.requireNonNull(transport), maxRequestsPerSecond, maxConnectionsPerHost);
+	}
+
+	/**
+	 * <p>
+	 * Wraps the {@linkplain Transport transport} with a persistent HTTP cache
+	 * in the specified folder, meant for the web pages and API responses
+	 * readers fetch. Running a reader again turns most of its requests into
+	 * conditional ones, which the server answers by {@code 304 Not Modified}
+	 * without sending the body again.
+	 * </p>
+	 * <p>
+	 * Responses younger than the time to live are served without asking the
+	 * server at all. Only {@code GET} requests without a {@code Range} are
+	 * cached, so downloads of media files pass through.
+	 * </p>
+	 * <p>
+	 * Requests which are not {@linkplain Request#cacheable() cacheable} and
+	 * responses marked {@code Cache-Control: no-store} or {@code private} are
+	 * never cached. Readers fetch API responses that carry expiring stream
+	 * URLs that way, as replaying them would fail once the URLs expired.
+	 * </p>
+	 * 
+	 * @param transport
+	 *            The {@link Transport} executing the requests
+	 * @param folder
+	 *            The folder of the cache, which is created if necessary
+	 * @param timeToLive
+	 *            The time a response is served without revalidating it, may be
+	 *            {@link Duration#ZERO} to always revalidate
+	 * @param maxBytes
+	 *            The maximum total size of the cached responses
+	 * @return The caching {@link Transport}
+	 * @throws IllegalArgumentException
+	 *             If the time to live or the size is negative
+	 * @throws NullPointerException
+	 *             If any parameter is {@code null}
+	 */
+	public static Transport cached(final Transport transport, final Path folder, final Duration timeToLive,
+			final long maxBytes) {
+		if (timeToLive.isNegative() || maxBytes < 0) {
+			throw new IllegalArgumentException("Time to live and size must not be negative");
+		}
+		return new CachingTransport(Objects.requireNonNull(transport), Objects.requireNonNull(folder),
+				timeToLive.toMillis(), maxBytes);
+	}
+}
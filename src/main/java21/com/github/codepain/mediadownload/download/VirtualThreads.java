@@ -0,0 +1,47 @@
+package com.github.codepain.mediadownload.download;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>
+ * Access to virtual threads, which are only available on Java 21 or later.
+ * </p>
+ * <p>
+ * This is the implementation for Java 21, which is part of the multi-release
+ * JAR.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+final class VirtualThreads {
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * <p>
+	 * Returns whether or not virtual threads are available.
+	 * </p>
+	 *
+	 * @return
+	 */
+	static boolean available() {
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Creates an {@link ExecutorService} starting a new virtual thread for
+	 * each task.
+	 * </p>
+	 *
+	 * @param name
+	 *            The prefix of the thread names
+	 * @return The {@link ExecutorService}
+	 */
+	static ExecutorService newExecutor(final String name) {
+		return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 1).factory());
+	}
+}
@@ -0,0 +1,266 @@
+package com.github.codepain.mediadownload.transport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * A {@linkplain Transport transport} based on {@link HttpClient}, which uses
+ * non-blocking I/O and a connection pool.
+ * </p>
+ * 
+ * @author codepain
+ *
+ */
+class HttpClientTransport implements Transport {
+
+	private static final int HTTP_BAD_REQUEST = 400;
+
+	private static final String DEFAULT_USER_AGENT = "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/48.0.2564.82 Safari/537.36";
+
+	/**
+	 * Headers managed by the client itself, setting them is not allowed
+	 */
+	private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+	static {
+		RESTRICTED_HEADERS.add("Connection");
+		RESTRICTED_HEADERS.add("Content-Length");
+		RESTRICTED_HEADERS.add("Expect");
+		RESTRICTED_HEADERS.add("Host");
+		RESTRICTED_HEADERS.add("Upgrade");
+	}
+
+	private final HttpClient client;
+
+	private final ConnectionPermits connections;
+
+	private final Duration requestTimeout;
+
+	HttpClientTransport(final int threads, final int maxConnections, final Duration connectTimeout,
+			final Duration requestTimeout) {
+		final AtomicInteger threadCount = new AtomicInteger();
+		final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			final Thread thread = new Thread(runnable, "media-download-http-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		client = HttpClient.newBuilder().executor(executor).connectTimeout(connectTimeout)
+				.followRedirects(HttpClient.Redirect.NORMAL).version(HttpClient.Version.HTTP_2).build();
+		connections = new ConnectionPermits(maxConnections);
+		this.requestTimeout = requestTimeout;
+	}
+
+	@Override
+	public Response execute(final Request request) throws IOException {
+		final CompletableFuture<Response> response = executeAsync(request, Runnable::run);
+		try {
+			return response.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			// the request may still be waiting for a connection, give it back then
+			response.thenAccept(abandoned -> {
+				try {
+					abandoned.close();
+				} catch (final IOException e1) {
+					// nevermind, nobody reads it anyway
+				}
+			});
+			throw new InterruptedIOException("Interrupted while executing " + request);
+		} catch (final ExecutionException e) {
+			throw unwrap(e.getCause());
+		}
+	}
+
+	@Override
+	public CompletableFuture<Response> executeAsync(final Request request, final Executor executor) {
+		final HttpRequest httpRequest;
+		try {
+			httpRequest = toHttpRequest(request);
+		} catch (final URISyntaxException e) {
+			return CompletableFuture.failedFuture(new IOException("Invalid URL " + request.url(), e));
+		}
+
+		final AtomicBoolean released = new AtomicBoolean();
+		final Runnable release = () -> {
+			if (released.compareAndSet(false, true)) {
+				connections.release();
+			}
+		};
+
+		return connections.acquire().thenCompose(permit -> client.sendAsync(httpRequest, BodyHandlers.ofInputStream()))
+				.handle((response, error) -> {
+					if (error != null) {
+						release.run();
+						throw new CompletionException(unwrap(error));
+					}
+
+					final HttpClientResponse result = new HttpClientResponse(response, release);
+					if (response.statusCode() >= HTTP_BAD_REQUEST) {
+						try {
+							result.close();
+						} catch (final IOException e) {
+							// nevermind, the status is what counts
+						}
+						throw new CompletionException(new HttpStatusException(response.statusCode(), request.url(),
+								HttpStatusException.parseRetryAfter(result.header("Retry-After"))));
+					}
+					return (Response) result;
+				});
+	}
+
+	private HttpRequest toHttpRequest(final Request request) throws URISyntaxException {
+		final URI uri = request.url().toURI();
+		final HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(requestTimeout);
+		boolean userAgent = false;
+		for (final Map.Entry<String, String> header : request.headers().entrySet()) {
+			if (!RESTRICTED_HEADERS.contains(header.getKey())) {
+				builder.header(header.getKey(), header.getValue());
+				userAgent |= "User-Agent".equalsIgnoreCase(header.getKey());
+			}
+		}
+		if (!userAgent) {
+			builder.header("User-Agent", DEFAULT_USER_AGENT);
+		}
+
+		if (request.data().isEmpty()) {
+			builder.method(request.method().toUpperCase(), HttpRequest.BodyPublishers.noBody());
+		} else {
+			final String form = request.data().entrySet().stream()
+					.map(e -> URLEncoder.encode(e.getKey(), StandardCharsets.UTF_8) + "="
+							+ URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+					.collect(Collectors.joining("&"));
+			builder.header("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
+			builder.method(request.method().toUpperCase(), HttpRequest.BodyPublishers.ofString(form));
+		}
+
+		return builder.build();
+	}
+
+	private static IOException unwrap(final Throwable error) {
+		Throwable cause = error;
+		while ((cause instanceof CompletionException || cause instanceof UncheckedIOException)
+				&& cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return cause instanceof IOException ? (IOException) cause : new IOException(cause);
+	}
+
+	/**
+	 * <p>
+	 * Limits the number of connections without blocking: a request waiting for
+	 * a connection gets a future, which is completed once another request
+	 * gives its connection back. Waiting requests are served in order.
+	 * </p>
+	 */
+	private static class ConnectionPermits {
+
+		private final Queue<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+
+		private int available;
+
+		ConnectionPermits(final int permits) {
+			available = permits;
+		}
+
+		CompletableFuture<Void> acquire() {
+			synchronized (this) {
+				if (available > 0) {
+					available--;
+					return CompletableFuture.completedFuture(null);
+				}
+				final CompletableFuture<Void> permit = new CompletableFuture<>();
+				waiting.add(permit);
+				return permit;
+			}
+		}
+
+		void release() {
+			CompletableFuture<Void> next;
+			do {
+				synchronized (this) {
+					next = waiting.poll();
+					if (next == null) {
+						available++;
+						return;
+					}
+				}
+				// completed outside of the lock, as it runs the waiting request
+			} while (!next.complete(null));
+		}
+	}
+
+	/**
+	 * <p>
+	 * Wraps the {@link HttpResponse}, giving the connection back once the
+	 * body is closed.
+	 * </p>
+	 */
+	private static class HttpClientResponse implements Response {
+
+		private final HttpResponse<InputStream> response;
+
+		private final InputStream body;
+
+		HttpClientResponse(final HttpResponse<InputStream> response, final Runnable release) {
+			this.response = response;
+			body = new FilterInputStream(response.body()) {
+
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						release.run();
+					}
+				}
+			};
+		}
+
+		@Override
+		public int statusCode() {
+			return response.statusCode();
+		}
+
+		@Override
+		public String header(final String name) {
+			return response.headers().firstValue(name).orElse(null);
+		}
+
+		@Override
+		public InputStream body() {
+			return body;
+		}
+
+		@Override
+		public void close() throws IOException {
+			body.close();
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.github.codepain.mediadownload.transport;
+
+import java.time.Duration;
+
+/**
+ * <p>
+ * Access to the {@linkplain Transport transport} based on
+ * {@code java.net.http.HttpClient}.
+ * </p>
+ * <p>
+ * This is the implementation for Java 21, which is part of the multi-release
+ * JAR.
+ * </p>
+ * 
+ * @author codepain
+ *
+ */
+final class HttpClients {
+
+	private HttpClients() {
+	}
+
+	static boolean available() {
+		return true;
+	}
+
+	static Transport newTransport(final int threads, final int maxConnections, final Duration connectTimeout,
+			final Duration requestTimeout) {
+		return new HttpClientTransport(threads, maxConnections, connectTimeout, requestTimeout);
+	}
+}
@@ -0,0 +1,174 @@
+package com.github.codepain.mediadownload.download;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.codepain.mediadownload.music.Track;
+import com.github.codepain.mediadownload.transport.Request;
+import com.github.codepain.mediadownload.transport.Response;
+import com.github.codepain.mediadownload.transport.Transport;
+
+/**
+ * <p>
+ * Tests {@linkplain DownloadOptions#resumable(boolean) resumable} downloads of
+ * the {@link SingleDownload} with their {@link DownloadJournal}.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+public class SingleDownloadTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void keepsFinishedItemWhenSameUrlIsDownloadedAgain() throws IOException {
+		final Path temporaryFolder = folder.getRoot().toPath();
+		final byte[] first = "first version of the track".getBytes(StandardCharsets.UTF_8);
+		final byte[] second = "second version, which is longer".getBytes(StandardCharsets.UTF_8);
+
+		final FileDownloadedItem firstItem = download(new URL("http://example.com/track.mp3?token=1"),
+				temporaryFolder, new RangeTransport(first, "\"1\""));
+		final FileDownloadedItem secondItem = download(new URL("http://example.com/track.mp3?token=2"),
+				temporaryFolder, new RangeTransport(second, "\"2\""));
+
+		assertNotEquals(firstItem.file(), secondItem.file());
+		assertArrayEquals(first, Files.readAllBytes(firstItem.file()));
+		assertArrayEquals(second, Files.readAllBytes(secondItem.file()));
+	}
+
+	@Test
+	public void resumesFromJournalDespiteNewQuery() throws IOException {
+		final Path temporaryFolder = folder.getRoot().toPath();
+		final byte[] data = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.UTF_8);
+
+		// an earlier run got the first ten bytes onto the disk
+		final DownloadJournal journal = DownloadJournal.open(temporaryFolder,
+				new URL("http://example.com/track.mp3?token=old"), Long.MAX_VALUE);
+		journal.reset(data.length, Collections.singletonList(new long[] { 0, data.length - 1 }));
+		journal.mimeType("audio/mpeg");
+		journal.validators("\"1\"", null);
+		journal.offset(0, 10);
+		try (final FileChannel channel = FileChannel.open(journal.partFile(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(data, 0, 10));
+		}
+		journal.save(journal.snapshot());
+
+		final RangeTransport transport = new RangeTransport(data, "\"1\"");
+		final FileDownloadedItem item = download(new URL("http://example.com/track.mp3?token=new"),
+				temporaryFolder, transport);
+
+		assertEquals(Arrays.asList("bytes=10-"), transport.ranges);
+		assertArrayEquals(data, Files.readAllBytes(item.file()));
+		assertFalse(Files.exists(journal.partFile()));
+	}
+
+	@Test
+	public void deletesStaleJournals() throws IOException {
+		final Path temporaryFolder = folder.getRoot().toPath();
+		final String name = "0123456789012345678901234567890123456789";
+		final Path staleJournal = Files.createFile(temporaryFolder.resolve(name + ".journal"));
+		final Path stalePart = Files.createFile(temporaryFolder.resolve(name + ".part"));
+		final Path other = Files.createFile(temporaryFolder.resolve("other.part"));
+
+		DownloadJournal.open(temporaryFolder, new URL("http://example.com/track.mp3"), -1);
+
+		assertFalse(Files.exists(staleJournal));
+		assertFalse(Files.exists(stalePart));
+		assertTrue(Files.exists(other));
+	}
+
+	private static FileDownloadedItem download(final URL url, final Path temporaryFolder, final Transport transport)
+			throws IOException {
+		final DownloadOptions options = new DownloadOptions().resumable(true).temporaryFolder(temporaryFolder)
+				.transport(transport);
+		final DownloadedItem item = new SingleDownload(new Track("track", url), url, options).start().future()
+				.join();
+		assertTrue(item instanceof FileDownloadedItem);
+		return (FileDownloadedItem) item;
+	}
+
+	/**
+	 * <p>
+	 * A {@link Transport} serving the data with support for open ranges, like
+	 * {@code bytes=10-}.
+	 * </p>
+	 */
+	private static class RangeTransport implements Transport {
+
+		private final byte[] data;
+
+		private final String etag;
+
+		final List<String> ranges = new ArrayList<>();
+
+		RangeTransport(final byte[] data, final String etag) {
+			this.data = data;
+			this.etag = etag;
+		}
+
+		@Override
+		public Response execute(final Request request) {
+			final String range = request.header("Range");
+			ranges.add(range);
+			final int from = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+			return new Response() {
+
+				@Override
+				public int statusCode() {
+					return 206;
+				}
+
+				@Override
+				public String header(final String name) {
+					switch (name) {
+					case "Content-Type":
+						return "audio/mpeg";
+					case "ETag":
+						return etag;
+					case "Content-Range":
+						return "bytes " + from + "-" + (data.length - 1) + "/" + data.length;
+					case "Content-Length":
+						return String.valueOf(data.length - from);
+					default:
+						return null;
+					}
+				}
+
+				@Override
+				public InputStream body() {
+					return new ByteArrayInputStream(data, from, data.length - from);
+				}
+
+				@Override
+				public void close() {
+					// nothing to do
+				}
+			};
+		}
+	}
+}
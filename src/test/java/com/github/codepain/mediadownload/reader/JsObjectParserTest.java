@@ -0,0 +1,125 @@
+package com.github.codepain.mediadownload.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.text.ParseException;
+import java.util.Arrays;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+/**
+ * <p>
+ * Tests the {@link JsObjectParser} with the JavaScript that is no JSON.
+ * </p>
+ *
+ * @author codepain
+ *
+ */
+public class JsObjectParserTest {
+
+	@Test
+	public void parsesJson() throws ParseException {
+		final JSONObject object = (JSONObject) JsObjectParser
+				.parse("{\"a\": 1, \"b\": -2.5, \"c\": [true, false, null], \"d\": \"x\\ny\\u0041\"}");
+
+		assertEquals(1L, object.get("a"));
+		assertEquals(-2.5, object.get("b"));
+		assertEquals(Arrays.asList(true, false, null), object.get("c"));
+		assertEquals("x\nyA", object.get("d"));
+	}
+
+	@Test
+	public void parsesUnquotedKeys() throws ParseException {
+		final JSONObject object = (JSONObject) JsObjectParser.parse("{ title: \"a\", track_num: 3, $id: 7 }");
+
+		assertEquals("a", object.get("title"));
+		assertEquals(3L, object.get("track_num"));
+		assertEquals(7L, object.get("$id"));
+	}
+
+	@Test
+	public void parsesSingleQuotes() throws ParseException {
+		final JSONObject object = (JSONObject) JsObjectParser.parse("{'mp3-128': 'it\\'s \"quoted\"'}");
+
+		assertEquals("it's \"quoted\"", object.get("mp3-128"));
+	}
+
+	@Test
+	public void skipsComments() throws ParseException {
+		final JSONObject object = (JSONObject) JsObjectParser
+				.parse("{\n// a line comment\na: 1, /* a block\ncomment */ b: /* inline */ 2 // at the end\n}");
+
+		assertEquals(1L, object.get("a"));
+		assertEquals(2L, object.get("b"));
+		assertEquals(2, object.size());
+	}
+
+	@Test
+	public void acceptsTrailingCommas() throws ParseException {
+		final JSONObject object = (JSONObject) JsObjectParser.parse("{a: [1, 2,], b: {c: 3,},}");
+
+		assertEquals(Arrays.asList(1L, 2L), object.get("a"));
+		assertEquals(3L, ((JSONObject) object.get("b")).get("c"));
+	}
+
+	@Test
+	public void concatenates() throws ParseException {
+		final JSONObject object = (JSONObject) JsObjectParser
+				.parse("{url: \"https://a.bandcamp.com\" + '/album/' + 'b', number: 1 + 2, mixed: 'track ' + 4}");
+
+		assertEquals("https://a.bandcamp.com/album/b", object.get("url"));
+		assertEquals(3L, object.get("number"));
+		assertEquals("track 4", object.get("mixed"));
+	}
+
+	@Test
+	public void skipsExpressions() throws ParseException {
+		final JSONObject object = (JSONObject) JsObjectParser.parse(
+				"{a: new Date(\"2015\"), b: foo.bar({x: [1, ')']}), c: undefined, d: true, e: window.x, f: 'kept'}");
+
+		assertNull(object.get("a"));
+		assertNull(object.get("b"));
+		assertNull(object.get("c"));
+		assertEquals(Boolean.TRUE, object.get("d"));
+		assertNull(object.get("e"));
+		assertEquals("kept", object.get("f"));
+		assertEquals(6, object.size());
+	}
+
+	@Test
+	public void parsesAssignment() throws ParseException {
+		final JSONArray array = (JSONArray) JsObjectParser.parseAssignment(
+				"var siteroot = '/';\nvar TralbumData = [{id: 1}, {id: 2}];\nvar other = {};", "TralbumData");
+
+		assertEquals(2, array.size());
+		assertEquals(2L, ((JSONObject) array.get(1)).get("id"));
+	}
+
+	@Test
+	public void ignoresComparisonsAndMembers() throws ParseException {
+		final Object value = JsObjectParser.parseAssignment(
+				"if (x.TralbumData == null) {}\nwindow.TralbumData = 1;\nTralbumData = 2;", "TralbumData");
+
+		assertEquals(2L, value);
+	}
+
+	@Test
+	public void failsWithoutAssignment() {
+		try {
+			JsObjectParser.parseAssignment("var other = {};", "TralbumData");
+			fail("Parsed a missing assignment");
+		} catch (final ParseException e) {
+			assertTrue(e.getMessage().contains("TralbumData"));
+		}
+	}
+
+	@Test(expected = ParseException.class)
+	public void failsOnUnterminatedObject() throws ParseException {
+		JsObjectParser.parse("{a: 1, b: [2, 3]");
+	}
+}